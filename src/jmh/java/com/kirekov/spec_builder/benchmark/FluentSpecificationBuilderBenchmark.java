@@ -0,0 +1,101 @@
+package com.kirekov.spec_builder.benchmark;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.from.PathFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.metamodel.Attribute;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the fluent chain: construction, {@link FluentSpecificationBuilder#build()}
+ * and {@link Specification#toPredicate} against in-memory H2 persistence unit.
+ * Run with <code>./gradlew jmh</code>, the GC profiler reports the allocation rate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FluentSpecificationBuilderBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    private int conditions;
+    @Param({"AND", "OR"})
+    private String combination;
+    @Param({"STRING", "ATTRIBUTE", "PATH_FUNCTION"})
+    private String fieldType;
+    @Param({"false", "true"})
+    private boolean denied;
+
+    private BenchmarkPersistence persistence;
+    private EntityManager entityManager;
+    private CriteriaBuilder criteriaBuilder;
+    private Attribute<Employee, ?> nameAttribute;
+    private PathFunction<Employee, String> namePathFunction;
+    private FluentSpecificationBuilder<Employee> builder;
+    private Specification<Employee> specification;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        persistence = new BenchmarkPersistence();
+        entityManager = persistence.getEntityManagerFactory().createEntityManager();
+        criteriaBuilder = entityManager.getCriteriaBuilder();
+        nameAttribute = (Attribute<Employee, ?>) entityManager.getMetamodel()
+                .entity(Employee.class)
+                .getAttribute(Employee.NAME);
+        namePathFunction = root -> root.get(Employee.NAME);
+        builder = chain();
+        specification = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        persistence.close();
+    }
+
+    @Benchmark
+    public FluentSpecificationBuilder<Employee> chain() {
+        var current = "AND".equals(combination)
+                ? FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                : FluentSpecificationBuilder.<Employee>combinedWithOr();
+        for (int i = 0; i < conditions; i++) {
+            final var provider = denied ? current.not() : current;
+            switch (fieldType) {
+                case "ATTRIBUTE":
+                    current = provider.eq(nameAttribute, "name");
+                    break;
+                case "PATH_FUNCTION":
+                    current = provider.eq(namePathFunction, "name");
+                    break;
+                default:
+                    current = provider.eq(Employee.NAME, "name");
+            }
+        }
+        return current;
+    }
+
+    @Benchmark
+    public Specification<Employee> build() {
+        return builder.build();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        final var query = criteriaBuilder.createQuery(Employee.class);
+        return specification.toPredicate(query.from(Employee.class), query, criteriaBuilder);
+    }
+}
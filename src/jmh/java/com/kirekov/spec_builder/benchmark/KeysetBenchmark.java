@@ -0,0 +1,92 @@
+package com.kirekov.spec_builder.benchmark;
+
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.keyset.Keyset;
+import com.kirekov.spec_builder.keyset.KeysetExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of reading the page deep in the result with <code>OFFSET</code>
+ * and with {@link KeysetExecutor}. The offset page gets slower with the page number,
+ * the keyset page costs the same
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeysetBenchmark {
+    private static final int ROWS_COUNT = 50_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "100", "2000"})
+    private int page;
+
+    private BenchmarkPersistence persistence;
+    private EntityManager entityManager;
+    private Keyset<Employee> keyset;
+    private KeysetExecutor<Employee> executor;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        persistence = new BenchmarkPersistence();
+        entityManager = persistence.getEntityManagerFactory().createEntityManager();
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < ROWS_COUNT; i++) {
+            entityManager.persist(Employee.builder().name("name" + i).age(i % 100).build());
+            if (i % 1000 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        keyset = Keyset.sortedBy(Sort.by("id"));
+        executor = new KeysetExecutor<>(entityManager, Employee.class);
+        token = page == 0 ? null : keyset.tokenOf(offsetPage(page * PAGE_SIZE - 1, 1).get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        persistence.close();
+    }
+
+    @Benchmark
+    public List<Employee> offset() {
+        final var content = offsetPage(page * PAGE_SIZE, PAGE_SIZE);
+        entityManager.clear();
+        return content;
+    }
+
+    @Benchmark
+    public List<Employee> keyset() {
+        final var content = executor.findPage(null, keyset, token, PAGE_SIZE).getContent();
+        entityManager.clear();
+        return content;
+    }
+
+    private List<Employee> offsetPage(int offset, int size) {
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Employee.class);
+        final var root = query.from(Employee.class);
+        query.select(root).orderBy(criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(size)
+                .getResultList();
+    }
+}
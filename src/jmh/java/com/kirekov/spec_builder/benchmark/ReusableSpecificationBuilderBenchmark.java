@@ -0,0 +1,57 @@
+package com.kirekov.spec_builder.benchmark;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.builder.ReusableSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares defining and building the same specification with {@link FluentSpecificationBuilder}
+ * and with {@link ReusableSpecificationBuilder} kept per thread.
+ * Compare <code>gc.alloc.rate.norm</code> of the GC profiler to see the allocated bytes per specification
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReusableSpecificationBuilderBenchmark {
+    @Param({"1", "10", "100"})
+    private int conditions;
+    @Param({"false", "true"})
+    private boolean denied;
+
+    private ReusableSpecificationBuilder<Employee> reusableBuilder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reusableBuilder = ReusableSpecificationBuilder.combinedWithAnd(conditions);
+    }
+
+    @Benchmark
+    public BuiltSpecification<Employee> fluent() {
+        var current = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        for (int i = 0; i < conditions; i++) {
+            current = (denied ? current.not() : current).eq(Employee.NAME, "name");
+        }
+        return current.build();
+    }
+
+    @Benchmark
+    public BuiltSpecification<Employee> reusable() {
+        final var builder = reusableBuilder.reset();
+        for (int i = 0; i < conditions; i++) {
+            (denied ? builder.not() : builder).eq(Employee.NAME, "name");
+        }
+        return builder.build();
+    }
+}
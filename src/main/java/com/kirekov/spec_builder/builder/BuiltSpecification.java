@@ -0,0 +1,126 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.node.JoiningVisitor;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.PredicateVisitor;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+import lombok.With;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.function.Supplier;
+
+/**
+ * Specification produced by {@link FluentSpecificationBuilder} or {@link ReusableSpecificationBuilder}.
+ * Unlike lambda specifications it can be inspected and compared structurally.
+ * The hints are applied only by the executors that create the query themselves.
+ * The predicate listener is not a part of the specification, it does not affect the equality
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class BuiltSpecification<Entity> implements Specification<Entity> {
+    SpecificationNode<Entity> node;
+    boolean distinct;
+    PredicateOptions options;
+    QueryHints hints;
+    @With
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    PredicateListener predicateListener;
+
+    public BuiltSpecification(
+            SpecificationNode<Entity> node,
+            boolean distinct,
+            PredicateOptions options,
+            QueryHints hints
+    ) {
+        this(node, distinct, options, hints, null);
+    }
+
+    public BuiltSpecification(
+            SpecificationNode<Entity> node,
+            boolean distinct,
+            PredicateOptions options,
+            QueryHints hints,
+            PredicateListener predicateListener
+    ) {
+        this.node = node;
+        this.distinct = distinct;
+        this.options = options;
+        this.hints = hints;
+        this.predicateListener = predicateListener;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Entity> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return timed(() -> node.accept(new PredicateVisitor<>(root, query.distinct(distinct), criteriaBuilder, options)));
+    }
+
+    /**
+     * Returns the specification for the count query of this one. Distinct specification does not need
+     * <code>count(distinct ...)</code>: its predicate matches every root once, and the count query is not distinct.
+     * Executors pass it to the count query explicitly, so queries of other result types are never rewritten
+     *
+     * @return the specification for the count query
+     * @see #toUniquePredicate(Root, CriteriaQuery, CriteriaBuilder)
+     */
+    public Specification<Entity> forCount() {
+        if (!distinct) {
+            return this;
+        }
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(false);
+            return toUniquePredicate(root, query, criteriaBuilder);
+        };
+    }
+
+    /**
+     * Creates the predicate that matches every root at most once and adds no joins to the root,
+     * so the query needs no <code>DISTINCT</code>, and the predicate can be combined with others
+     * by <code>OR</code> or selected as a flag. If the tree may join anything, it is moved to correlated
+     * <code>EXISTS</code> subquery, otherwise it is applied to the root as is. Whether it joins is decided
+     * without lowering, so the tree is lowered exactly once. The query is used only to create the subquery,
+     * its distinct flag, selection and ordering are not changed
+     *
+     * @param root            the root
+     * @param query           the query
+     * @param criteriaBuilder the criteria builder
+     * @return the predicate or <code>null</code> if the specification does not restrict the query
+     * @see JoiningVisitor
+     */
+    public Predicate toUniquePredicate(Root<Entity> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return timed(() -> uniquePredicate(root, query, criteriaBuilder));
+    }
+
+    private Predicate uniquePredicate(Root<Entity> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        final var model = root.getModel();
+        if (!node.accept(new JoiningVisitor<>(model, options))) {
+            return node.accept(new PredicateVisitor<>(root, query, criteriaBuilder, options));
+        }
+        final var subquery = query.subquery(model.getJavaType());
+        final var subqueryRoot = subquery.from(model);
+        final var predicate = node.accept(new PredicateVisitor<>(subqueryRoot, query, criteriaBuilder, options));
+        if (predicate == null) {
+            return null;
+        }
+        subquery.select(subqueryRoot).where(criteriaBuilder.equal(subqueryRoot, root), predicate);
+        return criteriaBuilder.exists(subquery);
+    }
+
+    private Predicate timed(Supplier<Predicate> predicate) {
+        if (predicateListener == null) {
+            return predicate.get();
+        }
+        final var startedAt = System.nanoTime();
+        final var result = predicate.get();
+        predicateListener.predicateBuilt(System.nanoTime() - startedAt);
+        return result;
+    }
+}
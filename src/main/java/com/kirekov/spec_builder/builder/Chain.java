@@ -0,0 +1,54 @@
+package com.kirekov.spec_builder.builder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable singly linked list that allows to append elements in constant time
+ * and to share the common prefix between different builders
+ *
+ * @param <T> the type of the elements
+ */
+final class Chain<T> {
+    private static final Chain<?> EMPTY = new Chain<>(null, null, 0);
+
+    private final T last;
+    private final Chain<T> previous;
+    private final int size;
+
+    private Chain(T last, Chain<T> previous, int size) {
+        this.last = last;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Chain<T> empty() {
+        return (Chain<T>) EMPTY;
+    }
+
+    Chain<T> append(T element) {
+        return new Chain<>(element, this, size + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Collects the elements without recursion
+     *
+     * @return unmodifiable list of elements in the order of appending
+     */
+    @SuppressWarnings("unchecked")
+    List<T> toList() {
+        final var elements = new Object[size];
+        var current = this;
+        for (int i = size - 1; i >= 0; i--) {
+            elements[i] = current.last;
+            current = current.previous;
+        }
+        return Collections.unmodifiableList(Arrays.asList((T[]) elements));
+    }
+}
@@ -0,0 +1,171 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.from.PathFunction;
+import com.kirekov.spec_builder.metamodel.EntityAttributes;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ComparisonOperator;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.FunctionPath;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.LikePattern;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Creates the condition nodes for the builders, so every builder produces the same tree for the same calls.
+ * If the attributes are not <code>null</code>, the fields and the values are validated against the metamodel
+ */
+final class Conditions {
+    private Conditions() {
+    }
+
+    static <Entity> SpecificationNode<Entity> eq(EntityAttributes<Entity> attributes, String field, Object value) {
+        return new EqNode<>(fieldPath(attributes, field, value), value);
+    }
+
+    static <Entity> SpecificationNode<Entity> eq(PathFunction<Entity, ?> pathFunction, Object value) {
+        return new EqNode<>(new FunctionPath<>(pathFunction), value);
+    }
+
+    static <Entity> SpecificationNode<Entity> in(
+            EntityAttributes<Entity> attributes,
+            String field,
+            Collection<?> values
+    ) {
+        for (final var value : values) {
+            fieldPath(attributes, field, value);
+        }
+        return InNode.of(fieldPath(attributes, field), values);
+    }
+
+    static <Entity> SpecificationNode<Entity> in(PathFunction<Entity, ?> pathFunction, Collection<?> values) {
+        return InNode.of(new FunctionPath<>(pathFunction), values);
+    }
+
+    static <Entity> SpecificationNode<Entity> like(EntityAttributes<Entity> attributes, String field, String pattern) {
+        LikePattern.checkEscapes(pattern);
+        return new LikeNode<>(fieldPath(attributes, field, pattern), pattern);
+    }
+
+    static <Entity> SpecificationNode<Entity> like(PathFunction<Entity, String> pathFunction, String pattern) {
+        LikePattern.checkEscapes(pattern);
+        return new LikeNode<>(new FunctionPath<>(pathFunction), pattern);
+    }
+
+    static <Entity> SpecificationNode<Entity> likeIgnoreCase(
+            EntityAttributes<Entity> attributes,
+            String field,
+            String pattern
+    ) {
+        LikePattern.checkEscapes(pattern);
+        return new LikeIgnoreCaseNode<>(fieldPath(attributes, field, pattern), pattern);
+    }
+
+    static <Entity> SpecificationNode<Entity> likeIgnoreCase(PathFunction<Entity, String> pathFunction, String pattern) {
+        LikePattern.checkEscapes(pattern);
+        return new LikeIgnoreCaseNode<>(new FunctionPath<>(pathFunction), pattern);
+    }
+
+    static <Entity> SpecificationNode<Entity> compare(
+            EntityAttributes<Entity> attributes,
+            String field,
+            ComparisonOperator operator,
+            Comparable<?> value
+    ) {
+        checkNotNull(value);
+        return new ComparisonNode<>(fieldPath(attributes, field, value), operator, value);
+    }
+
+    static <Entity> SpecificationNode<Entity> compare(
+            PathFunction<Entity, ?> pathFunction,
+            ComparisonOperator operator,
+            Object value
+    ) {
+        checkNotNull(value);
+        return new ComparisonNode<>(new FunctionPath<>(pathFunction), operator, value);
+    }
+
+    static <Entity> SpecificationNode<Entity> between(
+            EntityAttributes<Entity> attributes,
+            String field,
+            Comparable<?> lower,
+            Comparable<?> upper
+    ) {
+        checkNotNull(lower);
+        checkNotNull(upper);
+        fieldPath(attributes, field, upper);
+        return new BetweenNode<>(fieldPath(attributes, field, lower), lower, upper);
+    }
+
+    static <Entity> SpecificationNode<Entity> between(
+            PathFunction<Entity, ?> pathFunction,
+            Object lower,
+            Object upper
+    ) {
+        checkNotNull(lower);
+        checkNotNull(upper);
+        return new BetweenNode<>(new FunctionPath<>(pathFunction), lower, upper);
+    }
+
+    /**
+     * Specifications built by the builders with the default options are embedded as nodes,
+     * so the resulting tree stays inspectable, and the nodes take the options of the outer builder.
+     * Distinct specifications and the ones with other options keep their settings,
+     * see {@link EmbeddedSpecification}
+     *
+     * @throws IllegalArgumentException if the built specification has query hints
+     */
+    static <Entity> SpecificationNode<Entity> specification(Specification<Entity> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return new CustomNode<>(specification);
+        }
+        final var built = (BuiltSpecification<Entity>) specification;
+        if (!QueryHints.NONE.equals(built.getHints())) {
+            throw new IllegalArgumentException(
+                    "Query hints are applied to the whole query, define them on the outer builder: " + built.getHints()
+            );
+        }
+        if (!built.isDistinct() && PredicateOptions.DEFAULT.equals(built.getOptions())) {
+            return built.getNode();
+        }
+        return new CustomNode<>(new EmbeddedSpecification<>(built.withPredicateListener(null)));
+    }
+
+    private static <Entity> FieldPath<Entity> fieldPath(EntityAttributes<Entity> attributes, String field) {
+        if (attributes == null) {
+            return new FieldPath<>(field);
+        }
+        return new FieldPath<>(field, attributes.resolve(field).getAttributes());
+    }
+
+    /**
+     * Creates the path and checks that the value matches the type of the field
+     */
+    private static <Entity> FieldPath<Entity> fieldPath(
+            EntityAttributes<Entity> attributes,
+            String field,
+            Object value
+    ) {
+        if (attributes == null) {
+            return new FieldPath<>(field);
+        }
+        return new FieldPath<>(field, attributes.resolve(field, value).getAttributes());
+    }
+
+    /**
+     * Comparison with <code>null</code> never matches, so it is rejected
+     */
+    private static void checkNotNull(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Compared value must not be null");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.node.PredicateVisitor;
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * Built specification embedded into another builder with its own options.
+ * The distinct flag of the outer query is left alone: the distinct specification is applied
+ * as {@link BuiltSpecification#toUniquePredicate(Root, CriteriaQuery, CriteriaBuilder)},
+ * so it matches every root once just like the distinct query
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+class EmbeddedSpecification<Entity> implements Specification<Entity> {
+    BuiltSpecification<Entity> specification;
+
+    @Override
+    public Predicate toPredicate(Root<Entity> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        if (specification.isDistinct()) {
+            return specification.toUniquePredicate(root, query, criteriaBuilder);
+        }
+        return specification.getNode()
+                .accept(new PredicateVisitor<>(root, query, criteriaBuilder, specification.getOptions()));
+    }
+}
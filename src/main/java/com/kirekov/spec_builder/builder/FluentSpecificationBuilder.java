@@ -1,23 +1,42 @@
 package com.kirekov.spec_builder.builder;
 
 import com.kirekov.spec_builder.from.PathFunction;
+import com.kirekov.spec_builder.metamodel.EntityAttributes;
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.node.ComparisonOperator;
+import com.kirekov.spec_builder.node.IgnoreCaseStrategy;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import com.kirekov.spec_builder.optimizer.SpecificationOptimizer;
 import com.kirekov.spec_builder.provider.CombinedSpecificationProvider;
 import com.kirekov.spec_builder.provider.NotSpecificationProvider;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 
-import javax.persistence.criteria.Predicate;
+import javax.persistence.LockModeType;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.metamodel.Attribute;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class FluentSpecificationBuilder<Entity>
         implements
         NotSpecificationProvider<Entity, FluentSpecificationBuilder<Entity>>,
-        SpecificationBuilder<Entity> {
+        HintedSpecificationBuilder<Entity> {
     private final boolean denied;
     private final boolean and;
-    private final Specification<Entity> result;
+    private final Chain<SpecificationNode<Entity>> nodes;
+    private final PredicateOptions options;
+    private final boolean optimized;
+    private final EntityAttributes<Entity> attributes;
+    private final QueryHints hints;
 
     public static <Entity> FluentSpecificationBuilder<Entity> combinedWithAnd() {
         return combined(true);
@@ -27,29 +46,166 @@ public class FluentSpecificationBuilder<Entity>
         return combined(false);
     }
 
+    /**
+     * Creates the builder that validates field names and values against the metamodel
+     * when the condition is added. The resolved attributes are cached,
+     * so the same field is never looked up by name twice
+     *
+     * @param attributes the attributes of the entity
+     * @param <Entity>   the type of the entity
+     * @return the builder
+     * @see com.kirekov.spec_builder.metamodel.MetamodelRegistry
+     */
+    public static <Entity> FluentSpecificationBuilder<Entity> combinedWithAnd(EntityAttributes<Entity> attributes) {
+        return combined(true, attributes);
+    }
+
+    public static <Entity> FluentSpecificationBuilder<Entity> combinedWithOr(EntityAttributes<Entity> attributes) {
+        return combined(false, attributes);
+    }
+
     private static <Entity> FluentSpecificationBuilder<Entity> combined(boolean and) {
-        return new FluentSpecificationBuilder<>(false, and, NullSpecification.getInstance());
+        return combined(and, null);
     }
 
-    private static <Entity> FluentSpecificationBuilder<Entity> from(Specification<Entity> result, boolean and) {
-        return from(result, false, and);
+    private static <Entity> FluentSpecificationBuilder<Entity> combined(boolean and, EntityAttributes<Entity> attributes) {
+        return new FluentSpecificationBuilder<>(
+                false, and, Chain.empty(), PredicateOptions.DEFAULT, false, attributes, QueryHints.NONE
+        );
     }
 
-    private static <Entity> FluentSpecificationBuilder<Entity> deniedFrom(Specification<Entity> result, boolean and) {
-        return from(result, true, and);
+    private FluentSpecificationBuilder<Entity> from(Chain<SpecificationNode<Entity>> nodes) {
+        return new FluentSpecificationBuilder<>(false, and, nodes, options, optimized, attributes, hints);
     }
 
-    private static <Entity> FluentSpecificationBuilder<Entity> from(
-            Specification<Entity> result,
-            boolean denied,
-            boolean and
-    ) {
-        return new FluentSpecificationBuilder<>(denied, and, result);
+    private FluentSpecificationBuilder<Entity> deniedFrom(Chain<SpecificationNode<Entity>> nodes) {
+        return new FluentSpecificationBuilder<>(true, and, nodes, options, optimized, attributes, hints);
+    }
+
+    /**
+     * Defines the type of joins that are created for dotted field names like <code>roles.name</code>.
+     * All conditions on the same association share one join,
+     * so they are applied to the same associated entity. The default type is {@link JoinType#INNER}
+     *
+     * @param joinType the type of the joins
+     * @return the builder
+     */
+    public FluentSpecificationBuilder<Entity> joinType(JoinType joinType) {
+        return withOptions(options.withJoinType(joinType));
+    }
+
+    /**
+     * Defines how conditions on dotted field names are applied.
+     * With {@link AssociationMode#EXISTS} every such condition becomes correlated <code>EXISTS</code> subquery,
+     * so conditions on to-many associations do not produce duplicates and do not require
+     * distinct queries. {@link AssociationMode#AUTO} uses subqueries only for paths that go through collections.
+     * The default mode is {@link AssociationMode#JOIN}
+     *
+     * @param associationMode the mode
+     * @return the builder
+     */
+    public FluentSpecificationBuilder<Entity> associationMode(AssociationMode associationMode) {
+        return withOptions(options.withAssociationMode(associationMode));
+    }
+
+    /**
+     * Defines how <code>likeIgnoreCase</code> conditions are compared.
+     * The default strategy is {@link IgnoreCaseStrategy#lower()}
+     *
+     * @param ignoreCaseStrategy the strategy
+     * @return the builder
+     */
+    public FluentSpecificationBuilder<Entity> ignoreCaseStrategy(IgnoreCaseStrategy ignoreCaseStrategy) {
+        return withOptions(options.withIgnoreCaseStrategy(ignoreCaseStrategy));
+    }
+
+    /**
+     * Declares that the compared columns use binary collation, e.g. <code>C</code> in PostgreSQL.
+     * Then prefix patterns like <code>abc%</code> are guarded with the range <code>&gt;= 'abc' AND &lt; 'abd'</code>
+     * that can use the index. Do not use it with linguistic collations, since the range may exclude matched rows
+     *
+     * @return the builder
+     */
+    public FluentSpecificationBuilder<Entity> binaryCollation() {
+        return withOptions(options.withBinaryCollation(true));
+    }
+
+    /**
+     * Simplifies the tree when the specification is built.
+     * Duplicate conditions are removed, negations are pushed down to the conditions,
+     * equalities on the same field are merged into <code>IN</code>,
+     * and the contradicting conditions are replaced with constant predicate
+     *
+     * @return the builder
+     * @see SpecificationOptimizer
+     */
+    public FluentSpecificationBuilder<Entity> optimized() {
+        return new FluentSpecificationBuilder<>(denied, and, nodes, options, true, attributes, hints);
+    }
+
+    private FluentSpecificationBuilder<Entity> withOptions(PredicateOptions options) {
+        return new FluentSpecificationBuilder<>(denied, and, nodes, options, optimized, attributes, hints);
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> fetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        return withHints(hints.withFetchSize(fetchSize));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> readOnly() {
+        return withHints(hints.withReadOnly(true));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> timeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        return withHints(hints.withTimeout(timeout));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> lockMode(LockModeType lockMode) {
+        return withHints(hints.withLockMode(lockMode));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> fingerprintComment() {
+        return withHints(hints.withFingerprintComment(true));
+    }
+
+    /**
+     * Adds the paths to the fetched ones. If any path goes through a collection,
+     * the entities are still returned once, also with {@link #buildDistinct()}
+     */
+    @Override
+    public FluentSpecificationBuilder<Entity> fetch(String... paths) {
+        final var fetchPaths = new ArrayList<>(hints.getFetchPaths());
+        for (final var path : paths) {
+            if (path == null || path.isBlank()) {
+                throw new IllegalArgumentException("Fetch path must not be blank");
+            }
+            fetchPaths.add(path);
+        }
+        return withHints(hints.withFetchPaths(List.copyOf(fetchPaths)));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> entityGraph(String name) {
+        return withHints(hints.withEntityGraph(name));
+    }
+
+    private FluentSpecificationBuilder<Entity> withHints(QueryHints hints) {
+        return new FluentSpecificationBuilder<>(denied, and, nodes, options, optimized, attributes, hints);
     }
 
     @Override
     public CombinedSpecificationProvider<Entity, FluentSpecificationBuilder<Entity>> not() {
-        return deniedFrom(result, and);
+        return deniedFrom(nodes);
     }
 
     @Override
@@ -59,12 +215,27 @@ public class FluentSpecificationBuilder<Entity>
 
     @Override
     public FluentSpecificationBuilder<Entity> eq(String field, Object value) {
-        return eq(root -> root.get(field), value);
+        return applyNode(Conditions.eq(attributes, field, value));
     }
 
     @Override
-    public FluentSpecificationBuilder<Entity> eq(PathFunction<Entity> pathFunction, Object value) {
-        return applySpecification((root, query, criteriaBuilder) -> criteriaBuilder.equal(pathFunction.apply(root), value));
+    public <T> FluentSpecificationBuilder<Entity> eq(PathFunction<Entity, T> pathFunction, Object value) {
+        return applyNode(Conditions.eq(pathFunction, value));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> in(Attribute<Entity, ?> field, Collection<?> values) {
+        return in(field.getName(), values);
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> in(String field, Collection<?> values) {
+        return applyNode(Conditions.in(attributes, field, values));
+    }
+
+    @Override
+    public <T> FluentSpecificationBuilder<Entity> in(PathFunction<Entity, T> pathFunction, Collection<?> values) {
+        return applyNode(Conditions.in(pathFunction, values));
     }
 
     @Override
@@ -74,12 +245,12 @@ public class FluentSpecificationBuilder<Entity>
 
     @Override
     public FluentSpecificationBuilder<Entity> like(String field, String pattern) {
-        return like(root -> root.get(field), pattern);
+        return applyNode(Conditions.like(attributes, field, pattern));
     }
 
     @Override
-    public FluentSpecificationBuilder<Entity> like(PathFunction<Entity> pathFunction, String pattern) {
-        return applySpecification((root, query, criteriaBuilder) -> criteriaBuilder.like(pathFunction.apply(root), pattern));
+    public FluentSpecificationBuilder<Entity> like(PathFunction<Entity, String> pathFunction, String pattern) {
+        return applyNode(Conditions.like(pathFunction, pattern));
     }
 
     @Override
@@ -89,56 +260,160 @@ public class FluentSpecificationBuilder<Entity>
 
     @Override
     public FluentSpecificationBuilder<Entity> likeIgnoreCase(String field, String pattern) {
-        return likeIgnoreCase(root -> root.get(field), pattern);
+        return applyNode(Conditions.likeIgnoreCase(attributes, field, pattern));
     }
 
     @Override
-    public FluentSpecificationBuilder<Entity> likeIgnoreCase(PathFunction<Entity> pathFunction, String pattern) {
-        return applySpecification((root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(pathFunction.apply(root)), pattern.toLowerCase())
-        );
+    public FluentSpecificationBuilder<Entity> likeIgnoreCase(PathFunction<Entity, String> pathFunction, String pattern) {
+        return applyNode(Conditions.likeIgnoreCase(pathFunction, pattern));
     }
 
+    @Override
+    public FluentSpecificationBuilder<Entity> gt(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.GT, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> gt(Attribute<Entity, T> field, T value) {
+        return gt(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> gt(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.GT, value));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> ge(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.GE, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> ge(Attribute<Entity, T> field, T value) {
+        return ge(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> ge(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.GE, value));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> lt(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.LT, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> lt(Attribute<Entity, T> field, T value) {
+        return lt(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> lt(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.LT, value));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> le(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.LE, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> le(Attribute<Entity, T> field, T value) {
+        return le(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> le(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.LE, value));
+    }
+
+    @Override
+    public FluentSpecificationBuilder<Entity> between(String field, Comparable<?> lower, Comparable<?> upper) {
+        return applyNode(Conditions.between(attributes, field, lower, upper));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> between(
+            Attribute<Entity, T> field,
+            T lower,
+            T upper
+    ) {
+        return between(field.getName(), lower, upper);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> FluentSpecificationBuilder<Entity> between(
+            PathFunction<Entity, T> pathFunction,
+            T lower,
+            T upper
+    ) {
+        return applyNode(Conditions.between(pathFunction, lower, upper));
+    }
+
+    /**
+     * Specifications built by {@link FluentSpecificationBuilder} with the default options are embedded as nodes,
+     * so the resulting tree stays inspectable, and the conditions take the options of this builder.
+     * The built specification with other options keeps them, and the distinct one matches every entity once
+     * without making the outer query distinct. Such specifications are embedded as custom ones
+     *
+     * @param specification the specification to apply
+     * @return the builder
+     * @throws IllegalArgumentException if the built specification has query hints,
+     *                                  they can be defined only for the whole query
+     */
     @Override
     public FluentSpecificationBuilder<Entity> specification(Specification<Entity> specification) {
-        return applySpecification(specification);
+        return applyNode(Conditions.specification(specification));
     }
 
     @Override
-    public Specification<Entity> build() {
+    public BuiltSpecification<Entity> build() {
         return innerBuild(false);
     }
 
     @Override
-    public Specification<Entity> buildDistinct() {
+    public BuiltSpecification<Entity> buildDistinct() {
         return innerBuild(true);
     }
 
-    private Specification<Entity> innerBuild(boolean distinct) {
-        return (root, query, criteriaBuilder) -> result.toPredicate(root, distinct ? query.distinct(true) : query.distinct(false), criteriaBuilder);
+    @Override
+    public <R> ProjectionQuery<Entity, R> select(Class<Entity> domainClass, Class<R> resultType, String... fields) {
+        return ProjectionQuery.of(build(), domainClass, resultType, fields);
     }
 
-    private FluentSpecificationBuilder<Entity> applySpecification(Specification<Entity> specification) {
-        final var spec = getCombinedSpecification(
-                (root, query, criteriaBuilder) -> wrapWithNotIfNeeded(
-                        specification.toPredicate(root, query, criteriaBuilder)
-                )
+    private BuiltSpecification<Entity> innerBuild(boolean distinct) {
+        final var node = toNode();
+        return new BuiltSpecification<>(
+                optimized ? SpecificationOptimizer.optimize(node) : node,
+                distinct,
+                options,
+                hints
         );
-        return from(spec, and);
     }
 
-    private Specification<Entity> getCombinedSpecification(Specification<Entity> specification) {
-        if (and) {
-            return result.and(specification);
-        } else {
-            return result.or(specification);
-        }
+    /**
+     * Combines all conditions into single n-ary <code>AND</code>/<code>OR</code> node
+     * instead of nesting them one into another
+     */
+    private SpecificationNode<Entity> toNode() {
+        final var list = nodes.toList();
+        return and ? new AndNode<>(list) : new OrNode<>(list);
     }
 
-    private Predicate wrapWithNotIfNeeded(Predicate predicate) {
-        if (denied) {
-            return predicate.not();
-        }
-        return predicate;
+    private FluentSpecificationBuilder<Entity> applyNode(SpecificationNode<Entity> node) {
+        return from(nodes.append(denied ? new NotNode<>(node) : node));
     }
 }
@@ -0,0 +1,81 @@
+package com.kirekov.spec_builder.builder;
+
+import javax.persistence.LockModeType;
+import java.time.Duration;
+
+/**
+ * Builder that also sets {@link QueryHints} of the built specification
+ * and creates the projection queries
+ *
+ * @param <Entity> the type of the entity
+ */
+public interface HintedSpecificationBuilder<Entity> extends SpecificationBuilder<Entity> {
+    /**
+     * Sets JDBC fetch size of the query
+     *
+     * @param fetchSize the number of rows fetched at once, must be positive
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> fetchSize(int fetchSize);
+
+    /**
+     * Loads the entities as read-only, so they are not dirty checked on flush
+     *
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> readOnly();
+
+    /**
+     * Sets the query timeout, so runaway filters do not hold connections
+     *
+     * @param timeout the timeout, must be positive
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> timeout(Duration timeout);
+
+    /**
+     * Locks the selected rows. Count queries are not locked
+     *
+     * @param lockMode the lock mode
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> lockMode(LockModeType lockMode);
+
+    /**
+     * Prefixes the query with SQL comment that holds the shape fingerprint of the specification,
+     * so the query can be traced on the database side.
+     * Hibernate writes comments only if <code>hibernate.use_sql_comments</code> is enabled
+     *
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> fingerprintComment();
+
+    /**
+     * Fetches the associations with the entities, so accessing them does not run a query per entity.
+     * The paths are dotted, e.g. <code>roles.users</code>. Count queries do not fetch anything
+     *
+     * @param paths the paths of the associations
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> fetch(String... paths);
+
+    /**
+     * Applies {@link javax.persistence.NamedEntityGraph} as load graph. Count queries do not use the graph
+     *
+     * @param name the name of the graph
+     * @return the builder
+     */
+    HintedSpecificationBuilder<Entity> entityGraph(String name);
+
+    /**
+     * Creates the query that selects only the given fields of the entities matched by the specification
+     *
+     * @param domainClass the class of the entity
+     * @param resultType  the type of the result: {@link javax.persistence.Tuple}, an interface with getters
+     *                    or a class with the constructor that accepts the fields
+     * @param fields      the fields to select
+     * @param <R>         the type of the result
+     * @return the projection query
+     */
+    <R> ProjectionQuery<Entity, R> select(Class<Entity> domainClass, Class<R> resultType, String... fields);
+}
@@ -0,0 +1,12 @@
+package com.kirekov.spec_builder.builder;
+
+/**
+ * Receives the time of building the predicate of {@link BuiltSpecification}
+ */
+@FunctionalInterface
+public interface PredicateListener {
+    /**
+     * @param nanos the time of building the predicate in nanoseconds
+     */
+    void predicateBuilt(long nanos);
+}
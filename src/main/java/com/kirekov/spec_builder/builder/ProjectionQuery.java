@@ -0,0 +1,133 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.node.JoinCache;
+import com.kirekov.spec_builder.node.PredicateVisitor;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Selects only the given fields of the entities that match the specification.
+ * The result type can be {@link Tuple}, an interface with getters or a class with the constructor
+ * that accepts the fields in the same order.
+ * <p>
+ * Every field is selected with an alias. The alias of the dotted field is written in camel case,
+ * e.g. <code>roles.name</code> is selected as <code>rolesName</code>.
+ * The interface is checked when the query is created: every method that is not default
+ * has to be a getter of the selected alias
+ *
+ * @param <Entity> the type of the entity
+ * @param <R>      the type of the result
+ */
+public class ProjectionQuery<Entity, R> {
+    private final BuiltSpecification<Entity> specification;
+    private final Class<Entity> domainClass;
+    private final Class<R> resultType;
+    private final List<String> fields;
+
+    private ProjectionQuery(
+            BuiltSpecification<Entity> specification,
+            Class<Entity> domainClass,
+            Class<R> resultType,
+            List<String> fields
+    ) {
+        this.specification = specification;
+        this.domainClass = domainClass;
+        this.resultType = resultType;
+        this.fields = fields;
+    }
+
+    public static <Entity, R> ProjectionQuery<Entity, R> of(
+            BuiltSpecification<Entity> specification,
+            Class<Entity> domainClass,
+            Class<R> resultType,
+            String... fields
+    ) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("Projection requires at least one field");
+        }
+        if (resultType.isInterface() && !Tuple.class.equals(resultType)) {
+            TupleProxy.validate(
+                    resultType,
+                    Arrays.stream(fields).map(ProjectionQuery::aliasOf).collect(Collectors.toSet())
+            );
+        }
+        return new ProjectionQuery<>(specification, domainClass, resultType, List.of(fields));
+    }
+
+    public List<R> findAll(EntityManager entityManager) {
+        return findAll(entityManager, Sort.unsorted());
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<R> findAll(EntityManager entityManager, Sort sort) {
+        if (Tuple.class.equals(resultType)) {
+            return (List<R>) findTuples(entityManager, sort);
+        }
+        if (resultType.isInterface()) {
+            return findTuples(entityManager, sort).stream()
+                    .map(tuple -> TupleProxy.create(resultType, tuple))
+                    .collect(Collectors.toList());
+        }
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(resultType);
+        final var selections = restrict(query, criteriaBuilder, sort);
+        query.select(criteriaBuilder.construct(resultType, selections.toArray(new Selection<?>[0])));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    static String aliasOf(String field) {
+        final var names = field.split("\\.");
+        final var alias = new StringBuilder(names[0]);
+        for (int i = 1; i < names.length; i++) {
+            alias.append(Character.toUpperCase(names[i].charAt(0))).append(names[i].substring(1));
+        }
+        return alias.toString();
+    }
+
+    private List<Tuple> findTuples(EntityManager entityManager, Sort sort) {
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createTupleQuery();
+        query.multiselect(restrict(query, criteriaBuilder, sort));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Applies the predicate tree and the ordering to the query and creates the selections.
+     * Selections and ordering share the joins with the predicate
+     */
+    private List<Selection<?>> restrict(
+            CriteriaQuery<?> query,
+            CriteriaBuilder criteriaBuilder,
+            Sort sort
+    ) {
+        final var root = query.from(domainClass);
+        final var visitor = new PredicateVisitor<>(root, query, criteriaBuilder, specification.getOptions());
+        final var predicate = specification.getNode().accept(visitor);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.distinct(specification.isDistinct());
+        final JoinCache<Entity> joins = visitor.getJoins();
+        query.orderBy(
+                sort.stream()
+                        .map(order -> order.isAscending()
+                                ? criteriaBuilder.asc(joins.get(order.getProperty()))
+                                : criteriaBuilder.desc(joins.get(order.getProperty())))
+                        .collect(Collectors.toList())
+        );
+        final var selections = new ArrayList<Selection<?>>(fields.size());
+        for (final var field : fields) {
+            selections.add(joins.get(field).alias(aliasOf(field)));
+        }
+        return selections;
+    }
+}
@@ -0,0 +1,49 @@
+package com.kirekov.spec_builder.builder;
+
+import lombok.Value;
+import lombok.With;
+
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Hints of the query created for {@link BuiltSpecification}.
+ * Specification can only add predicates, so the hints are applied by
+ * {@link com.kirekov.spec_builder.executor.HintedSpecificationExecutor}.
+ * <code>null</code> values are not applied
+ */
+@Value
+@With
+public class QueryHints {
+    public static final QueryHints NONE = new QueryHints(null, false, null, null, false, List.of(), null);
+
+    /**
+     * The number of rows fetched from JDBC result set at once
+     */
+    Integer fetchSize;
+    /**
+     * Whether the loaded entities are read-only, so they are not dirty checked on flush
+     */
+    boolean readOnly;
+    /**
+     * The query timeout
+     */
+    Duration timeout;
+    /**
+     * The lock mode of the selected rows. It is not applied to count queries
+     */
+    LockModeType lockMode;
+    /**
+     * Whether the query is prefixed with SQL comment that holds the shape fingerprint of the specification
+     */
+    boolean fingerprintComment;
+    /**
+     * The dotted paths of the associations fetched with the entities. They are not applied to count queries
+     */
+    List<String> fetchPaths;
+    /**
+     * The name of {@link javax.persistence.NamedEntityGraph} applied as load graph. It is not applied to count queries
+     */
+    String entityGraph;
+}
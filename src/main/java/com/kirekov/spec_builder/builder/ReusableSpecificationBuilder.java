@@ -0,0 +1,415 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.from.PathFunction;
+import com.kirekov.spec_builder.metamodel.EntityAttributes;
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.node.ComparisonOperator;
+import com.kirekov.spec_builder.node.IgnoreCaseStrategy;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import com.kirekov.spec_builder.optimizer.SpecificationOptimizer;
+import com.kirekov.spec_builder.provider.CombinedSpecificationProvider;
+import com.kirekov.spec_builder.provider.NotSpecificationProvider;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.LockModeType;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.metamodel.Attribute;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mutable counterpart of {@link FluentSpecificationBuilder} for hot request paths.
+ * Every call changes the builder itself and returns it, and the conditions are appended into the internal array,
+ * so nothing but the condition nodes is allocated while the specification is defined.
+ * The same calls produce the {@link BuiltSpecification} equal to the one of {@link FluentSpecificationBuilder}.
+ * <p>
+ * The builder is not thread-safe. It is meant to be kept per thread, e.g. in {@link ThreadLocal},
+ * and {@link #reset()} before every use. {@link #not()} inverts only the next condition
+ *
+ * @param <Entity> the type of the entity
+ */
+public class ReusableSpecificationBuilder<Entity>
+        implements
+        NotSpecificationProvider<Entity, ReusableSpecificationBuilder<Entity>>,
+        HintedSpecificationBuilder<Entity> {
+    private final boolean and;
+    private final EntityAttributes<Entity> attributes;
+    private SpecificationNode<Entity>[] nodes;
+    private int size;
+    private boolean denied;
+    private PredicateOptions options = PredicateOptions.DEFAULT;
+    private boolean optimized;
+    private QueryHints hints = QueryHints.NONE;
+
+    @SuppressWarnings("unchecked")
+    private ReusableSpecificationBuilder(boolean and, EntityAttributes<Entity> attributes, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.and = and;
+        this.attributes = attributes;
+        this.nodes = (SpecificationNode<Entity>[]) new SpecificationNode[capacity];
+    }
+
+    /**
+     * @param capacity the expected number of conditions. The array grows if more conditions are added
+     * @param <Entity> the type of the entity
+     * @return the builder
+     */
+    public static <Entity> ReusableSpecificationBuilder<Entity> combinedWithAnd(int capacity) {
+        return new ReusableSpecificationBuilder<>(true, null, capacity);
+    }
+
+    public static <Entity> ReusableSpecificationBuilder<Entity> combinedWithOr(int capacity) {
+        return new ReusableSpecificationBuilder<>(false, null, capacity);
+    }
+
+    /**
+     * Creates the builder that validates field names and values against the metamodel
+     *
+     * @param attributes the attributes of the entity
+     * @param capacity   the expected number of conditions
+     * @param <Entity>   the type of the entity
+     * @return the builder
+     * @see FluentSpecificationBuilder#combinedWithAnd(EntityAttributes)
+     */
+    public static <Entity> ReusableSpecificationBuilder<Entity> combinedWithAnd(
+            EntityAttributes<Entity> attributes,
+            int capacity
+    ) {
+        return new ReusableSpecificationBuilder<>(true, attributes, capacity);
+    }
+
+    public static <Entity> ReusableSpecificationBuilder<Entity> combinedWithOr(
+            EntityAttributes<Entity> attributes,
+            int capacity
+    ) {
+        return new ReusableSpecificationBuilder<>(false, attributes, capacity);
+    }
+
+    /**
+     * Removes all conditions, options and hints, so the builder can define the next specification.
+     * The internal array is kept. The specifications built before are not affected
+     *
+     * @return the builder
+     */
+    public ReusableSpecificationBuilder<Entity> reset() {
+        Arrays.fill(nodes, 0, size, null);
+        size = 0;
+        denied = false;
+        options = PredicateOptions.DEFAULT;
+        optimized = false;
+        hints = QueryHints.NONE;
+        return this;
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#joinType(JoinType)
+     */
+    public ReusableSpecificationBuilder<Entity> joinType(JoinType joinType) {
+        options = options.withJoinType(joinType);
+        return this;
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#associationMode(AssociationMode)
+     */
+    public ReusableSpecificationBuilder<Entity> associationMode(AssociationMode associationMode) {
+        options = options.withAssociationMode(associationMode);
+        return this;
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#ignoreCaseStrategy(IgnoreCaseStrategy)
+     */
+    public ReusableSpecificationBuilder<Entity> ignoreCaseStrategy(IgnoreCaseStrategy ignoreCaseStrategy) {
+        options = options.withIgnoreCaseStrategy(ignoreCaseStrategy);
+        return this;
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#binaryCollation()
+     */
+    public ReusableSpecificationBuilder<Entity> binaryCollation() {
+        options = options.withBinaryCollation(true);
+        return this;
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#optimized()
+     */
+    public ReusableSpecificationBuilder<Entity> optimized() {
+        optimized = true;
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> fetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        hints = hints.withFetchSize(fetchSize);
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> readOnly() {
+        hints = hints.withReadOnly(true);
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> timeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        hints = hints.withTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> lockMode(LockModeType lockMode) {
+        hints = hints.withLockMode(lockMode);
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> fingerprintComment() {
+        hints = hints.withFingerprintComment(true);
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> fetch(String... paths) {
+        final var fetchPaths = new ArrayList<>(hints.getFetchPaths());
+        for (final var path : paths) {
+            if (path == null || path.isBlank()) {
+                throw new IllegalArgumentException("Fetch path must not be blank");
+            }
+            fetchPaths.add(path);
+        }
+        hints = hints.withFetchPaths(List.copyOf(fetchPaths));
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> entityGraph(String name) {
+        hints = hints.withEntityGraph(name);
+        return this;
+    }
+
+    @Override
+    public CombinedSpecificationProvider<Entity, ReusableSpecificationBuilder<Entity>> not() {
+        denied = true;
+        return this;
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> eq(Attribute<Entity, ?> field, Object value) {
+        return eq(field.getName(), value);
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> eq(String field, Object value) {
+        return applyNode(Conditions.eq(attributes, field, value));
+    }
+
+    @Override
+    public <T> ReusableSpecificationBuilder<Entity> eq(PathFunction<Entity, T> pathFunction, Object value) {
+        return applyNode(Conditions.eq(pathFunction, value));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> in(Attribute<Entity, ?> field, Collection<?> values) {
+        return in(field.getName(), values);
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> in(String field, Collection<?> values) {
+        return applyNode(Conditions.in(attributes, field, values));
+    }
+
+    @Override
+    public <T> ReusableSpecificationBuilder<Entity> in(PathFunction<Entity, T> pathFunction, Collection<?> values) {
+        return applyNode(Conditions.in(pathFunction, values));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> like(Attribute<Entity, ?> field, String pattern) {
+        return like(field.getName(), pattern);
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> like(String field, String pattern) {
+        return applyNode(Conditions.like(attributes, field, pattern));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> like(PathFunction<Entity, String> pathFunction, String pattern) {
+        return applyNode(Conditions.like(pathFunction, pattern));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> likeIgnoreCase(Attribute<Entity, ?> field, String pattern) {
+        return likeIgnoreCase(field.getName(), pattern);
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> likeIgnoreCase(String field, String pattern) {
+        return applyNode(Conditions.likeIgnoreCase(attributes, field, pattern));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> likeIgnoreCase(PathFunction<Entity, String> pathFunction, String pattern) {
+        return applyNode(Conditions.likeIgnoreCase(pathFunction, pattern));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> gt(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.GT, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> gt(Attribute<Entity, T> field, T value) {
+        return gt(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> gt(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.GT, value));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> ge(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.GE, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> ge(Attribute<Entity, T> field, T value) {
+        return ge(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> ge(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.GE, value));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> lt(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.LT, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> lt(Attribute<Entity, T> field, T value) {
+        return lt(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> lt(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.LT, value));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> le(String field, Comparable<?> value) {
+        return applyNode(Conditions.compare(attributes, field, ComparisonOperator.LE, value));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> le(Attribute<Entity, T> field, T value) {
+        return le(field.getName(), value);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> le(
+            PathFunction<Entity, T> pathFunction,
+            T value
+    ) {
+        return applyNode(Conditions.compare(pathFunction, ComparisonOperator.LE, value));
+    }
+
+    @Override
+    public ReusableSpecificationBuilder<Entity> between(String field, Comparable<?> lower, Comparable<?> upper) {
+        return applyNode(Conditions.between(attributes, field, lower, upper));
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> between(
+            Attribute<Entity, T> field,
+            T lower,
+            T upper
+    ) {
+        return between(field.getName(), lower, upper);
+    }
+
+    @Override
+    public <T extends Comparable<? super T>> ReusableSpecificationBuilder<Entity> between(
+            PathFunction<Entity, T> pathFunction,
+            T lower,
+            T upper
+    ) {
+        return applyNode(Conditions.between(pathFunction, lower, upper));
+    }
+
+    /**
+     * @see FluentSpecificationBuilder#specification(Specification)
+     */
+    @Override
+    public ReusableSpecificationBuilder<Entity> specification(Specification<Entity> specification) {
+        return applyNode(Conditions.specification(specification));
+    }
+
+    @Override
+    public BuiltSpecification<Entity> build() {
+        return innerBuild(false);
+    }
+
+    @Override
+    public BuiltSpecification<Entity> buildDistinct() {
+        return innerBuild(true);
+    }
+
+    @Override
+    public <R> ProjectionQuery<Entity, R> select(Class<Entity> domainClass, Class<R> resultType, String... fields) {
+        return ProjectionQuery.of(build(), domainClass, resultType, fields);
+    }
+
+    /**
+     * The conditions are copied, so the specification does not change when the builder is reused
+     */
+    private BuiltSpecification<Entity> innerBuild(boolean distinct) {
+        final var list = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(nodes, size)));
+        final SpecificationNode<Entity> node = and ? new AndNode<>(list) : new OrNode<>(list);
+        return new BuiltSpecification<>(
+                optimized ? SpecificationOptimizer.optimize(node) : node,
+                distinct,
+                options,
+                hints
+        );
+    }
+
+    private ReusableSpecificationBuilder<Entity> applyNode(SpecificationNode<Entity> node) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        nodes[size++] = denied ? new NotNode<>(node) : node;
+        denied = false;
+        return this;
+    }
+}
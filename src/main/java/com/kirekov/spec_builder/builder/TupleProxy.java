@@ -0,0 +1,95 @@
+package com.kirekov.spec_builder.builder;
+
+import javax.persistence.Tuple;
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Implements the interface projection with getters that read the elements of {@link Tuple} by alias.
+ * Default methods of the interface are invoked as is
+ */
+final class TupleProxy implements InvocationHandler {
+    private final Tuple tuple;
+
+    private TupleProxy(Tuple tuple) {
+        this.tuple = tuple;
+    }
+
+    static <R> R create(Class<R> type, Tuple tuple) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new TupleProxy(tuple)));
+    }
+
+    /**
+     * Checks that every abstract method of the interface is a getter of one of the selected aliases
+     *
+     * @throws IllegalArgumentException if the interface cannot be implemented
+     */
+    static void validate(Class<?> type, Set<String> aliases) {
+        for (final var method : type.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            final var property = method.getParameterCount() == 0 ? propertyOf(method) : null;
+            if (property == null || !aliases.contains(property)) {
+                throw new IllegalArgumentException(
+                        "Method " + method + " is not a getter of the selected fields " + aliases
+                );
+            }
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass().equals(Object.class)) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return Arrays.toString(tuple.toArray());
+            }
+        }
+        if (method.isDefault()) {
+            final var declaringClass = method.getDeclaringClass();
+            return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+                    .unreflectSpecial(method, declaringClass)
+                    .bindTo(proxy)
+                    .invokeWithArguments(args == null ? new Object[0] : args);
+        }
+        final var property = propertyOf(method);
+        final var value = tuple.get(property);
+        if (value == null && method.getReturnType().isPrimitive()) {
+            throw new IllegalStateException(
+                    "Field " + property + " is null and cannot be returned by the primitive getter " + method
+            );
+        }
+        return value;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static String propertyOf(Method method) {
+        final var name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.kirekov.spec_builder.executor;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the content and the count queries of the page concurrently.
+ * Every query has its own {@link javax.persistence.EntityManager} and resource-local transaction,
+ * so they use separate connections. The transactions are rolled back, since the queries only read.
+ * The persistence unit has to use resource-local transactions, with JTA
+ * {@link javax.persistence.EntityManager#getTransaction()} fails with {@link IllegalStateException}.
+ * The entities are returned detached, so the associations have to be fetched in advance,
+ * see {@link com.kirekov.spec_builder.builder.HintedSpecificationBuilder#fetch(String...)}.
+ * <p>
+ * If the content has fewer rows than the page size, the total is known without counting.
+ * Then the page is completed as soon as the content is selected, and the count query is cancelled.
+ * The count that is still waiting for a thread is not started at all,
+ * the one that is already running completes, and its result is ignored.
+ * <p>
+ * The queries run on the given executor, which is owned and shut down by the caller,
+ * e.g. the one created by {@link #createDefaultExecutor()}
+ *
+ * @param <Entity> the type of the entity
+ */
+public class AsyncSpecificationExecutor<Entity> {
+    private final EntityManagerFactory entityManagerFactory;
+    private final Class<Entity> domainClass;
+    private final Executor executor;
+
+    public AsyncSpecificationExecutor(
+            EntityManagerFactory entityManagerFactory,
+            Class<Entity> domainClass,
+            Executor executor
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.domainClass = domainClass;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Page<Entity>> findAll(Specification<Entity> specification, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return this.<Page<Entity>>submit(
+                    () -> new PageImpl<>(inTransaction(query -> query.findAll(specification)))
+            );
+        }
+        final var content = submit(() -> inTransaction(query -> query.findContent(specification, pageable)));
+        final var count = submit(
+                () -> isCountKnown(content, pageable) ? null : inTransaction(query -> query.count(specification))
+        );
+        return content.<Page<Entity>>thenCompose(rows -> {
+            if (isShort(rows, pageable)) {
+                count.cancel(false);
+                return CompletableFuture.completedFuture(
+                        new PageImpl<>(rows, pageable, pageable.getOffset() + rows.size())
+                );
+            }
+            return count.thenApply(total -> new PageImpl<>(rows, pageable, total));
+        });
+    }
+
+    /**
+     * Creates the executor with virtual threads if they are supported,
+     * otherwise the bounded pool of daemon threads. The pool rejects extra tasks instead of running
+     * the queries in the caller thread, and the page completes with {@link RejectedExecutionException}.
+     * The caller shuts the executor down
+     *
+     * @return the executor
+     */
+    public static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            final var threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            final var counter = new AtomicInteger();
+            final var pool = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    60,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(threads * 64),
+                    runnable -> {
+                        final var thread = new Thread(runnable, "specification-executor-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <R> R inTransaction(Function<HintedSpecificationExecutor<Entity>, R> query) {
+        final var entityManager = entityManagerFactory.createEntityManager();
+        try {
+            final var transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                return query.apply(new HintedSpecificationExecutor<>(entityManager, domainClass));
+            } finally {
+                transaction.rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static boolean isCountKnown(CompletableFuture<? extends List<?>> content, Pageable pageable) {
+        return content.isDone() && !content.isCompletedExceptionally() && isShort(content.join(), pageable);
+    }
+
+    /**
+     * The same rule as {@link org.springframework.data.repository.support.PageableExecutionUtils}:
+     * the short page is the last one, unless it is empty and not the first one
+     */
+    private static boolean isShort(List<?> rows, Pageable pageable) {
+        return rows.size() < pageable.getPageSize() && (!rows.isEmpty() || pageable.getOffset() == 0);
+    }
+}
@@ -0,0 +1,177 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.optimizer.SpecificationOptimizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates several specifications of the same entity in one query.
+ * <p>
+ * Counts are selected as <code>sum(case when predicate then 1 else 0 end)</code> for each specification.
+ * Rows are selected once with <code>or</code> of all the predicates, and every row is tagged with
+ * <code>case when predicate then 1 else 0 end</code> for each specification, so the results are split back in memory.
+ * The specifications that join associations are applied as correlated <code>EXISTS</code> subqueries,
+ * so the joins neither duplicate nor filter out the rows of other specifications.
+ * {@link BuiltSpecification} is lowered once with {@link BuiltSpecification#toUniquePredicate},
+ * other specifications are always applied to the subquery.
+ * <p>
+ * {@link BuiltSpecification} that provably matches nothing is answered without being added to the query
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+public class BatchSpecificationExecutor<Entity> {
+    private final EntityManager entityManager;
+    private final Class<Entity> domainClass;
+
+    /**
+     * @return the number of matched rows for each specification in the same order
+     */
+    public List<Long> count(List<? extends Specification<Entity>> specifications) {
+        final var counts = new ArrayList<Long>(specifications.size());
+        final var executed = new ArrayList<Specification<Entity>>();
+        for (final var specification : specifications) {
+            if (matchesNothing(specification)) {
+                counts.add(0L);
+            } else {
+                counts.add(null);
+                executed.add(specification);
+            }
+        }
+        if (executed.isEmpty()) {
+            return counts;
+        }
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createTupleQuery();
+        final var root = query.from(domainClass);
+        final var predicates = predicatesOf(executed, root, query, criteriaBuilder);
+        final var selections = new ArrayList<Selection<?>>(predicates.size());
+        for (final var predicate : predicates) {
+            selections.add(criteriaBuilder.sum(flagOf(predicate, criteriaBuilder)));
+        }
+        query.multiselect(selections).where(criteriaBuilder.or(predicates.toArray(new Predicate[0])));
+        final var tuple = entityManager.createQuery(query).getSingleResult();
+        int index = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            if (counts.get(i) == null) {
+                final var sum = (Number) tuple.get(index++);
+                counts.set(i, sum == null ? 0L : sum.longValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the matched rows for each specification in the same order
+     */
+    public List<List<Entity>> findAll(List<? extends Specification<Entity>> specifications) {
+        return findAll(specifications, Sort.unsorted());
+    }
+
+    /**
+     * @return the matched rows for each specification in the same order.
+     * The rows that match several specifications are the same instances
+     */
+    public List<List<Entity>> findAll(List<? extends Specification<Entity>> specifications, Sort sort) {
+        final var results = new ArrayList<List<Entity>>(specifications.size());
+        final var executed = new ArrayList<Specification<Entity>>();
+        final var buckets = new ArrayList<List<Entity>>();
+        for (final var specification : specifications) {
+            final var bucket = new ArrayList<Entity>();
+            results.add(bucket);
+            if (!matchesNothing(specification)) {
+                executed.add(specification);
+                buckets.add(bucket);
+            }
+        }
+        if (executed.isEmpty()) {
+            return results;
+        }
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createTupleQuery();
+        final var root = query.from(domainClass);
+        final var predicates = predicatesOf(executed, root, query, criteriaBuilder);
+        final var selections = new ArrayList<Selection<?>>(predicates.size() + 1);
+        selections.add(root);
+        for (final var predicate : predicates) {
+            selections.add(flagOf(predicate, criteriaBuilder));
+        }
+        query.multiselect(selections)
+                .where(criteriaBuilder.or(predicates.toArray(new Predicate[0])))
+                .orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        for (final Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            final var entity = tuple.get(0, domainClass);
+            for (int i = 0; i < buckets.size(); i++) {
+                if (((Number) tuple.get(i + 1)).intValue() == 1) {
+                    buckets.get(i).add(entity);
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Predicate> predicatesOf(
+            List<Specification<Entity>> specifications,
+            Root<Entity> root,
+            CriteriaQuery<Tuple> query,
+            CriteriaBuilder criteriaBuilder
+    ) {
+        final var predicates = new ArrayList<Predicate>(specifications.size());
+        for (final var specification : specifications) {
+            final var predicate = predicateOf(specification, root, query, criteriaBuilder);
+            predicates.add(predicate == null ? criteriaBuilder.conjunction() : predicate);
+        }
+        return predicates;
+    }
+
+    /**
+     * {@link BuiltSpecification} creates the predicate that joins nothing to the root itself.
+     * Other specifications are opaque, so they are always applied to correlated subquery
+     */
+    private Predicate predicateOf(
+            Specification<Entity> specification,
+            Root<Entity> root,
+            CriteriaQuery<Tuple> query,
+            CriteriaBuilder criteriaBuilder
+    ) {
+        if (specification == null) {
+            return null;
+        }
+        if (specification instanceof BuiltSpecification) {
+            return ((BuiltSpecification<Entity>) specification).toUniquePredicate(root, query, criteriaBuilder);
+        }
+        final var subquery = query.subquery(domainClass);
+        final var subqueryRoot = subquery.from(domainClass);
+        final var predicate = specification.toPredicate(subqueryRoot, query, criteriaBuilder);
+        if (predicate == null) {
+            return null;
+        }
+        subquery.select(subqueryRoot).where(criteriaBuilder.equal(subqueryRoot, root), predicate);
+        return criteriaBuilder.exists(subquery);
+    }
+
+    private static Expression<Long> flagOf(Predicate predicate, CriteriaBuilder criteriaBuilder) {
+        return criteriaBuilder.<Long>selectCase()
+                .when(predicate, 1L)
+                .otherwise(0L);
+    }
+
+    private static boolean matchesNothing(Specification<?> specification) {
+        return specification instanceof BuiltSpecification
+                && SpecificationOptimizer.matchesNothing(((BuiltSpecification<?>) specification).getNode());
+    }
+}
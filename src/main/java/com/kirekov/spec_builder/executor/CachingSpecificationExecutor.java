@@ -0,0 +1,302 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import lombok.Value;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import javax.persistence.EntityManager;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decorates {@link JpaSpecificationExecutor} and caches the results of {@link BuiltSpecification}.
+ * The key is the specification itself, which is compared structurally, i.e. by the shape of the tree
+ * and the bound values, so the specifications built separately with the same conditions share the entry.
+ * Other specifications are opaque and passed to the delegate as is.
+ * <p>
+ * The cache is bounded, the least recently used entry is evicted when the size is exceeded.
+ * The entries expire after the time to live. The executor registered with {@link ResultCacheInvalidator}
+ * invalidates the entries when the entities they depend on are changed, i.e. the entities of the domain class
+ * and of the associations the conditions are applied to, e.g. <code>Role</code> for <code>roles.name</code>.
+ * The query that started before the invalidation does not put its result to the cache,
+ * and the query of the transaction that has changed the entities bypasses the cache.
+ * <p>
+ * The cache holds the identifiers, and the entities are loaded by them in the persistence context of the caller,
+ * so the managed instances are never shared between the sessions. The entities that are already managed
+ * or kept in the second-level cache are not queried again
+ *
+ * @param <Entity> the type of the entity
+ */
+public class CachingSpecificationExecutor<Entity> implements JpaSpecificationExecutor<Entity> {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final JpaSpecificationExecutor<Entity> delegate;
+    private final EntityManager entityManager;
+    private final Class<Entity> domainClass;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final Map<CacheKey, CacheEntry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Set<Class<?>> touchedTypes = new HashSet<>();
+    private long generation;
+    private volatile ResultCacheInvalidator invalidator;
+
+    public CachingSpecificationExecutor(
+            JpaSpecificationExecutor<Entity> delegate,
+            EntityManager entityManager,
+            Class<Entity> domainClass
+    ) {
+        this(delegate, entityManager, domainClass, DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    public CachingSpecificationExecutor(
+            JpaSpecificationExecutor<Entity> delegate,
+            EntityManager entityManager,
+            Class<Entity> domainClass,
+            int maxSize,
+            Duration timeToLive
+    ) {
+        this(delegate, entityManager, domainClass, maxSize, timeToLive, Clock.systemUTC());
+    }
+
+    public CachingSpecificationExecutor(
+            JpaSpecificationExecutor<Entity> delegate,
+            EntityManager entityManager,
+            Class<Entity> domainClass,
+            int maxSize,
+            Duration timeToLive,
+            Clock clock
+    ) {
+        if (maxSize <= 0 || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Max size and time to live must be positive");
+        }
+        this.delegate = delegate;
+        this.entityManager = entityManager;
+        this.domainClass = domainClass;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public Optional<Entity> findOne(Specification<Entity> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return delegate.findOne(specification);
+        }
+        final List<Object> ids = cached(
+                "findOne",
+                specification,
+                null,
+                () -> idsOf(delegate.findOne(specification).map(List::of).orElse(List.of()))
+        );
+        return load(ids).stream().findFirst();
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return delegate.findAll(specification);
+        }
+        return load(cached("findAll", specification, null, () -> idsOf(delegate.findAll(specification))));
+    }
+
+    @Override
+    public Page<Entity> findAll(Specification<Entity> specification, Pageable pageable) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return delegate.findAll(specification, pageable);
+        }
+        final CachedPage page = cached("findPage", specification, pageable, () -> {
+            final var result = delegate.findAll(specification, pageable);
+            return new CachedPage(idsOf(result.getContent()), result.getTotalElements());
+        });
+        return new PageImpl<>(load(page.getIds()), pageable, page.getTotalElements());
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification, Sort sort) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return delegate.findAll(specification, sort);
+        }
+        return load(cached("findSorted", specification, sort, () -> idsOf(delegate.findAll(specification, sort))));
+    }
+
+    @Override
+    public long count(Specification<Entity> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return delegate.count(specification);
+        }
+        return cached("count", specification, null, () -> delegate.count(specification));
+    }
+
+    /**
+     * Removes all the entries
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Removes the entries that depend on any of the changed entity types
+     *
+     * @param types the changed entity types
+     */
+    public void invalidate(Set<Class<?>> types) {
+        synchronized (entries) {
+            if (Collections.disjoint(touchedTypes, types)) {
+                return;
+            }
+            generation++;
+            entries.values().removeIf(entry -> !Collections.disjoint(entry.getTypes(), types));
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries removed because of the size limit or the expiration
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R cached(String operation, Specification<Entity> specification, Object argument, Supplier<R> query) {
+        final var key = new CacheKey(operation, specification, argument);
+        final var types = typesOf((BuiltSpecification<Entity>) specification);
+        if (hasPendingChanges(types)) {
+            return query.get();
+        }
+        final long startedAt;
+        synchronized (entries) {
+            touchedTypes.addAll(types);
+            final var entry = entries.get(key);
+            startedAt = generation;
+            if (entry != null) {
+                if (entry.getExpiresAt() > clock.millis()) {
+                    hits.increment();
+                    return (R) entry.getValue();
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        final var value = query.get();
+        if (hasPendingChanges(types)) {
+            return value;
+        }
+        final var expiresAt = clock.millis() + timeToLiveMillis;
+        synchronized (entries) {
+            if (generation == startedAt) {
+                entries.put(key, new CacheEntry(value, types, expiresAt));
+            }
+        }
+        return value;
+    }
+
+    void attach(ResultCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    /**
+     * The query of the transaction that has flushed the changes of the types sees the uncommitted rows,
+     * so its result is neither read from the cache nor put to it. The changes can be flushed by the query itself
+     */
+    private boolean hasPendingChanges(Set<Class<?>> types) {
+        final var current = invalidator;
+        return current != null && !Collections.disjoint(current.pendingChanges(), types);
+    }
+
+    private Set<Class<?>> typesOf(BuiltSpecification<Entity> specification) {
+        final var types = new HashSet<>(
+                specification.getNode().accept(new EntityTypesVisitor<>(entityManager.getMetamodel(), domainClass))
+        );
+        types.add(domainClass);
+        return types;
+    }
+
+    private List<Object> idsOf(List<Entity> entities) {
+        final var persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        return entities.stream()
+                .map(persistenceUnitUtil::getIdentifier)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Loads the entities in the order of the identifiers with one query at most.
+     * The entities removed in the meantime are skipped
+     */
+    private List<Entity> load(List<Object> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(domainClass)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    private static class CacheKey {
+        String operation;
+        Specification<?> specification;
+        Object argument;
+    }
+
+    @Value
+    private static class CacheEntry {
+        Object value;
+        Set<Class<?>> types;
+        long expiresAt;
+    }
+
+    @Value
+    private static class CachedPage {
+        List<Object> ids;
+        long totalElements;
+    }
+}
@@ -0,0 +1,141 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.NodePath;
+import com.kirekov.spec_builder.node.NodeVisitor;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the entity types of the associations that the conditions of the tree are applied to,
+ * e.g. <code>roles.name</code> of <code>User</code> touches <code>Role</code>.
+ * Custom specifications and path functions are opaque, so they touch every entity type
+ *
+ * @param <Entity> the type of the entity
+ */
+class EntityTypesVisitor<Entity> implements NodeVisitor<Entity, Set<Class<?>>> {
+    private final Metamodel metamodel;
+    private final Class<Entity> domainClass;
+
+    EntityTypesVisitor(Metamodel metamodel, Class<Entity> domainClass) {
+        this.metamodel = metamodel;
+        this.domainClass = domainClass;
+    }
+
+    @Override
+    public Set<Class<?>> visitEq(EqNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitIn(InNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitLike(LikeNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitComparison(ComparisonNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitBetween(BetweenNode<Entity> node) {
+        return typesOf(node.getPath());
+    }
+
+    @Override
+    public Set<Class<?>> visitNot(NotNode<Entity> node) {
+        return node.getNode().accept(this);
+    }
+
+    @Override
+    public Set<Class<?>> visitAnd(AndNode<Entity> node) {
+        return union(node.getNodes());
+    }
+
+    @Override
+    public Set<Class<?>> visitOr(OrNode<Entity> node) {
+        return union(node.getNodes());
+    }
+
+    @Override
+    public Set<Class<?>> visitCustom(CustomNode<Entity> node) {
+        return allTypes();
+    }
+
+    @Override
+    public Set<Class<?>> visitConstant(ConstantNode<Entity> node) {
+        return Set.of();
+    }
+
+    private Set<Class<?>> union(List<SpecificationNode<Entity>> nodes) {
+        final var types = new HashSet<Class<?>>();
+        for (final var node : nodes) {
+            types.addAll(node.accept(this));
+        }
+        return types;
+    }
+
+    private Set<Class<?>> typesOf(NodePath<Entity> path) {
+        if (!(path instanceof FieldPath)) {
+            return allTypes();
+        }
+        final var types = new HashSet<Class<?>>();
+        ManagedType<?> type = metamodel.managedType(domainClass);
+        final var names = ((FieldPath<Entity>) path).getField().split("\\.");
+        for (int i = 0; i < names.length; i++) {
+            final var attribute = type.getAttribute(names[i]);
+            final var javaType = javaTypeOf(attribute);
+            if (attribute.isAssociation()) {
+                types.add(javaType);
+            }
+            if (i < names.length - 1) {
+                type = metamodel.managedType(javaType);
+            }
+        }
+        return types;
+    }
+
+    private Set<Class<?>> allTypes() {
+        return metamodel.getEntities()
+                .stream()
+                .<Class<?>>map(Type::getJavaType)
+                .collect(Collectors.toSet());
+    }
+
+    private static Class<?> javaTypeOf(Attribute<?, ?> attribute) {
+        if (attribute instanceof PluralAttribute) {
+            return ((PluralAttribute<?, ?, ?>) attribute).getElementType().getJavaType();
+        }
+        return attribute.getJavaType();
+    }
+}
@@ -0,0 +1,22 @@
+package com.kirekov.spec_builder.executor;
+
+/**
+ * Names of the query hints supported by Hibernate.
+ * They are declared as strings, so other persistence providers just ignore them
+ */
+final class HibernateHints {
+    static final String FETCH_SIZE = "org.hibernate.fetchSize";
+    static final String READ_ONLY = "org.hibernate.readOnly";
+    static final String COMMENT = "org.hibernate.comment";
+    /**
+     * Standard JPA hint, the value is in milliseconds
+     */
+    static final String TIMEOUT = "javax.persistence.query.timeout";
+    /**
+     * Standard JPA hint, the value is {@link javax.persistence.EntityGraph}
+     */
+    static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    private HibernateHints() {
+    }
+}
@@ -0,0 +1,257 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Subgraph;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes specifications like {@link SimpleJpaRepository} and applies {@link QueryHints}
+ * of {@link BuiltSpecification} to the created queries.
+ * Read-only, fetch size, lock mode and fetched associations are applied only to the queries that select entities,
+ * timeout and comment are applied to count queries as well.
+ * <p>
+ * The fetched associations are applied as load graph. Hibernate returns every entity once
+ * even if the graph fetches a collection. Such query cannot be limited in SQL, so the page with the graph
+ * is selected in two queries: the first one selects the identifiers of the page with <code>LIMIT</code>,
+ * the second one loads the entities by the identifiers with the graph.
+ * Other specifications are executed without hints
+ *
+ * @param <Entity> the type of the entity
+ */
+public class HintedSpecificationExecutor<Entity> implements JpaSpecificationExecutor<Entity> {
+    private final HintedRepository<Entity> repository;
+
+    public HintedSpecificationExecutor(EntityManager entityManager, Class<Entity> domainClass) {
+        this.repository = new HintedRepository<>(domainClass, entityManager);
+    }
+
+    @Override
+    public Optional<Entity> findOne(Specification<Entity> specification) {
+        return repository.findOne(specification);
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification) {
+        return repository.findAll(specification);
+    }
+
+    @Override
+    public Page<Entity> findAll(Specification<Entity> specification, Pageable pageable) {
+        return repository.findAll(specification, pageable);
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification, Sort sort) {
+        return repository.findAll(specification, sort);
+    }
+
+    @Override
+    public long count(Specification<Entity> specification) {
+        return repository.count(specification);
+    }
+
+    /**
+     * Selects the content of the page without count query
+     */
+    List<Entity> findContent(Specification<Entity> specification, Pageable pageable) {
+        return repository.findContent(specification, pageable);
+    }
+
+    static void applyHints(Query query, Specification<?> specification, boolean selectsEntities) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return;
+        }
+        final var built = (BuiltSpecification<?>) specification;
+        final var hints = built.getHints();
+        if (hints.getTimeout() != null) {
+            query.setHint(HibernateHints.TIMEOUT, hints.getTimeout().toMillis());
+        }
+        if (hints.isFingerprintComment()) {
+            query.setHint(HibernateHints.COMMENT, commentOf(built));
+        }
+        if (!selectsEntities) {
+            return;
+        }
+        if (hints.getFetchSize() != null) {
+            query.setHint(HibernateHints.FETCH_SIZE, hints.getFetchSize());
+        }
+        if (hints.isReadOnly()) {
+            query.setHint(HibernateHints.READ_ONLY, true);
+        }
+        if (hints.getLockMode() != null) {
+            query.setLockMode(hints.getLockMode());
+        }
+    }
+
+    private static boolean hasGraph(Specification<?> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return false;
+        }
+        final var hints = ((BuiltSpecification<?>) specification).getHints();
+        return hints.getEntityGraph() != null || !hints.getFetchPaths().isEmpty();
+    }
+
+    /**
+     * Applies the named entity graph or the graph of the fetched paths
+     */
+    static <Entity> void applyGraph(
+            Query query,
+            Specification<?> specification,
+            EntityManager entityManager,
+            Class<Entity> domainClass
+    ) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return;
+        }
+        final var hints = ((BuiltSpecification<?>) specification).getHints();
+        if (hints.getEntityGraph() != null) {
+            query.setHint(HibernateHints.LOAD_GRAPH, entityManager.getEntityGraph(hints.getEntityGraph()));
+        } else if (!hints.getFetchPaths().isEmpty()) {
+            query.setHint(HibernateHints.LOAD_GRAPH, graphOf(entityManager, domainClass, hints.getFetchPaths()));
+        }
+    }
+
+    static <Entity> EntityGraph<Entity> graphOf(EntityManager entityManager, Class<Entity> domainClass, List<String> paths) {
+        final var graph = entityManager.createEntityGraph(domainClass);
+        for (final var path : paths) {
+            final var names = path.split("\\.");
+            if (names.length == 1) {
+                graph.addAttributeNodes(names[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(names[0]);
+            for (int i = 1; i < names.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(names[i]);
+            }
+            subgraph.addAttributeNodes(names[names.length - 1]);
+        }
+        return graph;
+    }
+
+    /**
+     * The fingerprint holds only field names and operators.
+     * The end of the comment is escaped, so the field name cannot close it
+     */
+    private static String commentOf(BuiltSpecification<?> specification) {
+        return "specification " + specification.getNode().fingerprint().replace("*/", "* /");
+    }
+
+    private static class HintedRepository<Entity> extends SimpleJpaRepository<Entity, Object> {
+        private final EntityManager entityManager;
+        private final JpaEntityInformation<Entity, ?> information;
+
+        HintedRepository(Class<Entity> domainClass, EntityManager entityManager) {
+            super(domainClass, entityManager);
+            this.entityManager = entityManager;
+            this.information = JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
+        }
+
+        @Override
+        public Page<Entity> findAll(Specification<Entity> spec, Pageable pageable) {
+            if (pageable.isUnpaged() || !pagesByIds(spec)) {
+                return super.findAll(spec, pageable);
+            }
+            return PageableExecutionUtils.getPage(findContent(spec, pageable), pageable, () -> count(spec));
+        }
+
+        @Override
+        protected <S extends Entity> TypedQuery<S> getQuery(Specification<S> spec, Class<S> domainClass, Sort sort) {
+            final var query = super.getQuery(spec, domainClass, sort);
+            applyHints(query, spec, true);
+            applyGraph(query, spec, entityManager, domainClass);
+            return query;
+        }
+
+        List<Entity> findContent(Specification<Entity> spec, Pageable pageable) {
+            if (pagesByIds(spec)) {
+                return findContentByIds((BuiltSpecification<Entity>) spec, pageable);
+            }
+            final var query = getQuery(spec, pageable);
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+            return query.getResultList();
+        }
+
+        private boolean pagesByIds(Specification<Entity> spec) {
+            return hasGraph(spec) && !information.hasCompositeId();
+        }
+
+        /**
+         * Selects the identifiers of the page with the predicate that matches every entity once,
+         * then loads the entities with the graph and orders them as the identifiers
+         */
+        private List<Entity> findContentByIds(BuiltSpecification<Entity> spec, Pageable pageable) {
+            final var criteriaBuilder = entityManager.getCriteriaBuilder();
+            final var idName = information.getIdAttribute().getName();
+
+            final var idQuery = criteriaBuilder.createQuery(Object.class);
+            final var idRoot = idQuery.from(getDomainClass());
+            final var predicate = spec.toUniquePredicate(idRoot, idQuery, criteriaBuilder);
+            idQuery.select(idRoot.get(idName));
+            if (predicate != null) {
+                idQuery.where(predicate);
+            }
+            if (pageable.getSort().isSorted()) {
+                idQuery.orderBy(QueryUtils.toOrders(pageable.getSort(), idRoot, criteriaBuilder));
+            }
+            final var typedIdQuery = entityManager.createQuery(idQuery)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+            applyHints(typedIdQuery, spec, false);
+            final List<Object> ids = typedIdQuery.getResultList();
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+
+            final var query = criteriaBuilder.createQuery(getDomainClass());
+            final var root = query.from(getDomainClass());
+            query.select(root).where(root.get(idName).in(ids));
+            final var typedQuery = entityManager.createQuery(query);
+            applyHints(typedQuery, spec, true);
+            applyGraph(typedQuery, spec, entityManager, getDomainClass());
+            final Map<Object, Entity> entities = typedQuery.getResultList()
+                    .stream()
+                    .collect(Collectors.toMap(information::getId, Function.identity(), (first, second) -> first));
+            return ids.stream()
+                    .map(entities::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Distinct {@link BuiltSpecification} is counted with its count specification,
+         * so the count query does not need <code>count(distinct ...)</code>
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <S extends Entity> TypedQuery<Long> getCountQuery(Specification<S> spec, Class<S> domainClass) {
+            final var countSpecification = spec instanceof BuiltSpecification
+                    ? ((BuiltSpecification<S>) spec).forCount()
+                    : spec;
+            final var query = super.getCountQuery(countSpecification, domainClass);
+            applyHints(query, spec, false);
+            return query;
+        }
+    }
+}
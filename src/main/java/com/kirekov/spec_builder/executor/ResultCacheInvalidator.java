@@ -0,0 +1,173 @@
+package com.kirekov.spec_builder.executor;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Invalidates the entries of {@link CachingSpecificationExecutor} when the entities are persisted,
+ * updated or removed through the given {@link EntityManagerFactory}.
+ * It is supposed to be created once per factory, e.g. as a bean, and the executors are registered
+ * with {@link #register(CachingSpecificationExecutor)}. The entities do not have to declare any listener.
+ * <p>
+ * The changes are collected on flush, and the entries are invalidated after the transaction completes,
+ * so other transactions do not cache the rows they cannot see yet. Until then the queries
+ * of the transaction that depend on the changed types bypass the cache, see {@link #pendingChanges()}.
+ * Without the Spring managed transaction the entries are invalidated on flush.
+ * The executors are referenced weakly and do not have to be unregistered
+ */
+public class ResultCacheInvalidator {
+    private final Set<CachingSpecificationExecutor<?>> executors =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public ResultCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        final var listener = new ChangeListener();
+        final var registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+    }
+
+    /**
+     * @param executor the executor to invalidate on changes
+     * @param <E>      the type of the executor
+     * @return the same executor
+     */
+    public <E extends CachingSpecificationExecutor<?>> E register(E executor) {
+        executor.attach(this);
+        executors.add(executor);
+        return executor;
+    }
+
+    /**
+     * @return the entity types changed and flushed by the current transaction
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Class<?>> pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Set.of();
+        }
+        final var changes = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        return changes == null ? Set.of() : Collections.unmodifiableSet(changes);
+    }
+
+    private void changed(Class<?> type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(Set.of(type));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        var changes = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new InvalidatingSynchronization(changes));
+        }
+        changes.add(type);
+    }
+
+    private void invalidate(Set<Class<?>> types) {
+        final List<CachingSpecificationExecutor<?>> registered;
+        synchronized (executors) {
+            registered = new ArrayList<>(executors);
+        }
+        for (final var executor : registered) {
+            executor.invalidate(types);
+        }
+    }
+
+    private class InvalidatingSynchronization implements TransactionSynchronization {
+        private final Set<Class<?>> changes;
+
+        InvalidatingSynchronization(Set<Class<?>> changes) {
+            this.changes = changes;
+        }
+
+        /**
+         * The entries are invalidated on rollback as well,
+         * in case a query of the transaction has cached the uncommitted rows before they were flushed
+         */
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ResultCacheInvalidator.this);
+            invalidate(changes);
+        }
+    }
+
+    private class ChangeListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+            PostCollectionRemoveEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getPersister().getMappedClass());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            changed(event.getPersister().getMappedClass());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getPersister().getMappedClass());
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void collectionChanged(AbstractCollectionEvent event) {
+            final var owner = event.getAffectedOwnerOrNull();
+            if (owner != null) {
+                changed(Hibernate.getClass(owner));
+            }
+        }
+    }
+}
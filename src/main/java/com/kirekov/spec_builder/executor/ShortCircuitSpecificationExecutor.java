@@ -0,0 +1,83 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.optimizer.SpecificationOptimizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates {@link JpaSpecificationExecutor} and does not query the database
+ * for {@link BuiltSpecification} that provably matches nothing, e.g. empty <code>in</code>,
+ * contradicting equalities or negation of always true condition.
+ * Other specifications are passed to the delegate as is
+ *
+ * @param <Entity> the type of the entity
+ * @see SpecificationOptimizer#matchesNothing(com.kirekov.spec_builder.node.SpecificationNode)
+ */
+@RequiredArgsConstructor
+public class ShortCircuitSpecificationExecutor<Entity> implements JpaSpecificationExecutor<Entity> {
+    private final JpaSpecificationExecutor<Entity> delegate;
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    @Override
+    public Optional<Entity> findOne(Specification<Entity> specification) {
+        return matchesNothing(specification) ? Optional.empty() : delegate.findOne(specification);
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification) {
+        return matchesNothing(specification) ? List.of() : delegate.findAll(specification);
+    }
+
+    @Override
+    public Page<Entity> findAll(Specification<Entity> specification, Pageable pageable) {
+        if (matchesNothing(specification)) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return delegate.findAll(specification, pageable);
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification, Sort sort) {
+        return matchesNothing(specification) ? List.of() : delegate.findAll(specification, sort);
+    }
+
+    @Override
+    public long count(Specification<Entity> specification) {
+        return matchesNothing(specification) ? 0 : delegate.count(specification);
+    }
+
+    /**
+     * @return the number of calls answered without querying the database
+     */
+    public long getShortCircuitCount() {
+        return shortCircuits.sum();
+    }
+
+    /**
+     * @return the number of calls passed to the delegate
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    private boolean matchesNothing(Specification<Entity> specification) {
+        if (specification instanceof BuiltSpecification
+                && SpecificationOptimizer.matchesNothing(((BuiltSpecification<Entity>) specification).getNode())) {
+            shortCircuits.increment();
+            return true;
+        }
+        executions.increment();
+        return false;
+    }
+}
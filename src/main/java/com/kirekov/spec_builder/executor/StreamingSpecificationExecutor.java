@@ -0,0 +1,136 @@
+package com.kirekov.spec_builder.executor;
+
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs the specification as a {@link Stream} backed by the database cursor.
+ * The rows are fetched in batches of the given size, or of the fetch size hint of the specification,
+ * and loaded as read-only entities. Every <code>clearInterval</code> rows the entities loaded by the stream
+ * are detached together with the associations fetched with them,
+ * so the memory consumption does not depend on the number of rows.
+ * The lazy associations initialized by the caller are not read-only and stay managed.
+ * Other entities of the persistence context, including the ones that were already managed
+ * before the stream returned them, stay managed, and their pending changes are flushed as usual.
+ * <p>
+ * The stream has to be consumed within a transaction and closed afterwards.
+ * Changes of the streamed entities are not persisted, since they are read-only
+ *
+ * @param <Entity> the type of the entity
+ */
+public class StreamingSpecificationExecutor<Entity> {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_CLEAR_INTERVAL = 1000;
+
+    private final EntityManager entityManager;
+    private final Class<Entity> domainClass;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public StreamingSpecificationExecutor(EntityManager entityManager, Class<Entity> domainClass) {
+        this(entityManager, domainClass, DEFAULT_FETCH_SIZE, DEFAULT_CLEAR_INTERVAL);
+    }
+
+    public StreamingSpecificationExecutor(
+            EntityManager entityManager,
+            Class<Entity> domainClass,
+            int fetchSize,
+            int clearInterval
+    ) {
+        if (fetchSize <= 0 || clearInterval <= 0) {
+            throw new IllegalArgumentException("Fetch size and clear interval must be positive");
+        }
+        this.entityManager = entityManager;
+        this.domainClass = domainClass;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    public Stream<Entity> stream(Specification<Entity> specification) {
+        final var results = createQuery(specification).getResultStream();
+        final var iterator = new ClearingIterator(results.iterator());
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(results::close);
+    }
+
+    private TypedQuery<Entity> createQuery(Specification<Entity> specification) {
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(domainClass);
+        final var root = query.from(domainClass);
+        final var predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        final var typedQuery = entityManager.createQuery(query.select(root))
+                .setHint(HibernateHints.FETCH_SIZE, fetchSize);
+        HintedSpecificationExecutor.applyHints(typedQuery, specification, true);
+        return typedQuery.setHint(HibernateHints.READ_ONLY, true);
+    }
+
+    /**
+     * Detaches the entities loaded by the stream before the cursor moves to the next row.
+     * Stream calls {@link #hasNext()} only after the previous element is consumed,
+     * so the element that is being processed is never detached.
+     * The rows, including the associations fetched with them or loaded eagerly,
+     * are read while the session loads the entities as read-only. Every read-only entity
+     * that was not managed when the stream started is detached, so the whole loaded graph is evicted,
+     * and the entities that were already managed or are changed by the caller stay
+     */
+    private class ClearingIterator implements Iterator<Entity> {
+        private final Iterator<Entity> delegate;
+        private final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        private final Set<EntityKey> managedBefore = new HashSet<>();
+        private long returned;
+
+        ClearingIterator(Iterator<Entity> delegate) {
+            this.delegate = delegate;
+            for (final var entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+                managedBefore.add(entry.getValue().getEntityKey());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (returned > 0 && returned % clearInterval == 0) {
+                for (final var entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+                    final var entityEntry = entry.getValue();
+                    if (entityEntry.isReadOnly() && !managedBefore.contains(entityEntry.getEntityKey())) {
+                        session.evict(entry.getKey());
+                    }
+                }
+            }
+            return readOnly(delegate::hasNext);
+        }
+
+        @Override
+        public Entity next() {
+            final var entity = readOnly(delegate::next);
+            returned++;
+            return entity;
+        }
+
+        private <R> R readOnly(Supplier<R> cursor) {
+            final var defaultReadOnly = session.isDefaultReadOnly();
+            session.setDefaultReadOnly(true);
+            try {
+                return cursor.get();
+            } finally {
+                session.setDefaultReadOnly(defaultReadOnly);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.metamodel.EntityAttributes;
+import com.kirekov.spec_builder.node.FieldPath;
+import org.springframework.core.convert.ConversionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the shape of the filter into {@link FilterTemplate}. The fields are resolved against the metamodel
+ * once, so binding the values only converts them and creates the nodes. The grammar is
+ * <pre>
+ * or        = and (',' and)*
+ * and       = term (';' term)*
+ * term      = '(' or ')' | condition
+ * condition = field operator ('?' | '(' '?' (',' '?')* ')')
+ * </pre>
+ * <code>AND</code> binds tighter than <code>OR</code>
+ *
+ * @param <Entity> the type of the entity
+ */
+final class FilterCompiler<Entity> {
+    private final String shape;
+    private final EntityAttributes<Entity> attributes;
+    private final ConversionService conversionService;
+    private int position;
+    private int slots;
+
+    private FilterCompiler(String shape, EntityAttributes<Entity> attributes, ConversionService conversionService) {
+        this.shape = shape;
+        this.attributes = attributes;
+        this.conversionService = conversionService;
+    }
+
+    static <Entity> FilterGroup<Entity> compile(
+            String shape,
+            EntityAttributes<Entity> attributes,
+            ConversionService conversionService
+    ) {
+        final var compiler = new FilterCompiler<>(shape, attributes, conversionService);
+        final var template = compiler.or();
+        if (compiler.position != shape.length()) {
+            throw compiler.error("Unexpected character '" + shape.charAt(compiler.position) + "'");
+        }
+        if (template instanceof FilterGroup) {
+            return (FilterGroup<Entity>) template;
+        }
+        return new FilterGroup<>(true, List.of(template));
+    }
+
+    private FilterTemplate<Entity> or() {
+        final var operands = new ArrayList<FilterTemplate<Entity>>();
+        operands.add(and());
+        while (accept(',')) {
+            operands.add(and());
+        }
+        return operands.size() == 1 ? operands.get(0) : new FilterGroup<>(false, operands);
+    }
+
+    private FilterTemplate<Entity> and() {
+        final var operands = new ArrayList<FilterTemplate<Entity>>();
+        operands.add(term());
+        while (accept(';')) {
+            operands.add(term());
+        }
+        return operands.size() == 1 ? operands.get(0) : new FilterGroup<>(true, operands);
+    }
+
+    private FilterTemplate<Entity> term() {
+        if (accept('(')) {
+            final var template = or();
+            expect(')');
+            return template;
+        }
+        return condition();
+    }
+
+    private FilterTemplate<Entity> condition() {
+        final var field = field();
+        final var operator = operator();
+        final var firstSlot = slots;
+        if (accept('(')) {
+            do {
+                expect(FilterTokenizer.SLOT);
+                slots++;
+            } while (accept(','));
+            expect(')');
+        } else {
+            expect(FilterTokenizer.SLOT);
+            slots++;
+        }
+        final var slotsCount = slots - firstSlot;
+        if (!operator.isMultiValued() && slotsCount > 1) {
+            throw error("Operator '" + operator.getSymbol() + "' accepts single value");
+        }
+        final var resolved = attributes.resolve(field);
+        return new FilterCondition<>(
+                new FieldPath<>(field, resolved.getAttributes()),
+                operator,
+                resolved.getJavaType(),
+                conversionService,
+                firstSlot,
+                slotsCount
+        );
+    }
+
+    private String field() {
+        final var start = position;
+        while (position < shape.length() && isFieldCharacter(shape.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected field");
+        }
+        return shape.substring(start, position);
+    }
+
+    private FilterOperator operator() {
+        final var start = position;
+        final var end = shape.indexOf('=', start + 1);
+        final var operator = end < 0 ? null : FilterOperator.of(shape.substring(start, end + 1));
+        if (operator == null) {
+            throw error("Unknown operator");
+        }
+        position = end + 1;
+        return operator;
+    }
+
+    private static boolean isFieldCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '$';
+    }
+
+    private boolean accept(char c) {
+        if (position < shape.length() && shape.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of filter shape '" + shape + "'");
+    }
+}
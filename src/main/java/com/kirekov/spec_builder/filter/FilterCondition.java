@@ -0,0 +1,126 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ComparisonOperator;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.LikePattern;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single condition like <code>age=in=(?,?)</code>. The values are taken from the slots
+ * <code>[firstSlot, firstSlot + slotsCount)</code> and converted to the type of the field.
+ * String fields take the values as is, so the quoted empty value is the empty string.
+ * Other types reject the values that convert to <code>null</code>, e.g. the empty one
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+class FilterCondition<Entity> implements FilterTemplate<Entity> {
+    private final FieldPath<Entity> path;
+    private final FilterOperator operator;
+    private final Class<?> type;
+    private final ConversionService conversionService;
+    private final int firstSlot;
+    private final int slotsCount;
+
+    @Override
+    public SpecificationNode<Entity> bind(List<String> values) {
+        switch (operator) {
+            case EQ:
+                return new EqNode<>(path, convert(values.get(firstSlot)));
+            case NOT_EQ:
+                return new NotNode<>(new EqNode<>(path, convert(values.get(firstSlot))));
+            case IN:
+                return InNode.of(path, convertAll(values));
+            case OUT:
+                return new NotNode<>(InNode.of(path, convertAll(values)));
+            case LIKE:
+                return new LikeNode<>(path, toPattern(values.get(firstSlot)));
+            case ILIKE:
+                return new LikeIgnoreCaseNode<>(path, toPattern(values.get(firstSlot)));
+            case GT:
+                return compare(ComparisonOperator.GT, values);
+            case GE:
+                return compare(ComparisonOperator.GE, values);
+            case LT:
+                return compare(ComparisonOperator.LT, values);
+            case LE:
+                return compare(ComparisonOperator.LE, values);
+            default:
+                throw new IllegalStateException("Unsupported operator " + operator);
+        }
+    }
+
+    private SpecificationNode<Entity> compare(ComparisonOperator comparisonOperator, List<String> values) {
+        return new ComparisonNode<>(path, comparisonOperator, comparable(values.get(firstSlot)));
+    }
+
+    private Object convert(String value) {
+        if (String.class.equals(type)) {
+            return value;
+        }
+        final Object converted;
+        try {
+            converted = conversionService.convert(value, type);
+        } catch (ConversionException e) {
+            throw conversionError(value, e);
+        }
+        if (converted == null) {
+            throw conversionError(value, null);
+        }
+        return converted;
+    }
+
+    private IllegalArgumentException conversionError(String value, Exception cause) {
+        return new IllegalArgumentException(
+                "Value '" + value + "' of field '" + path.getField() + "' cannot be converted to " + type.getName(),
+                cause
+        );
+    }
+
+    private Comparable<?> comparable(String value) {
+        final var converted = convert(value);
+        if (!(converted instanceof Comparable)) {
+            throw new IllegalArgumentException("Field '" + path.getField() + "' of type " + type.getName() + " is not comparable");
+        }
+        return (Comparable<?>) converted;
+    }
+
+    private List<Object> convertAll(List<String> values) {
+        final var result = new ArrayList<>(slotsCount);
+        for (int i = firstSlot; i < firstSlot + slotsCount; i++) {
+            result.add(convert(values.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Replaces <code>*</code> wildcard with <code>%</code> and escapes the characters that are special for <code>like</code>
+     */
+    static String toPattern(String value) {
+        final var pattern = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c == '*') {
+                pattern.append('%');
+            } else {
+                if (c == '%' || c == '_' || c == LikePattern.ESCAPE) {
+                    pattern.append(LikePattern.ESCAPE);
+                }
+                pattern.append(c);
+            }
+        }
+        return pattern.toString();
+    }
+}
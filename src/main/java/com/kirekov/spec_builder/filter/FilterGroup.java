@@ -0,0 +1,36 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.QueryHints;
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operands combined with <code>AND</code> (<code>;</code>) or <code>OR</code> (<code>,</code>)
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+class FilterGroup<Entity> implements FilterTemplate<Entity> {
+    private final boolean and;
+    private final List<FilterTemplate<Entity>> operands;
+
+    BuiltSpecification<Entity> build(List<String> values) {
+        return new BuiltSpecification<>(bind(values), false, PredicateOptions.DEFAULT, QueryHints.NONE);
+    }
+
+    @Override
+    public SpecificationNode<Entity> bind(List<String> values) {
+        final var nodes = new ArrayList<SpecificationNode<Entity>>(operands.size());
+        for (final var operand : operands) {
+            nodes.add(operand.bind(values));
+        }
+        return and ? new AndNode<>(nodes) : new OrNode<>(nodes);
+    }
+}
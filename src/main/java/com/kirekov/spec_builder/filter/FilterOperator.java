@@ -0,0 +1,31 @@
+package com.kirekov.spec_builder.filter;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+enum FilterOperator {
+    EQ("==", false),
+    NOT_EQ("!=", false),
+    IN("=in=", true),
+    OUT("=out=", true),
+    LIKE("=like=", false),
+    ILIKE("=ilike=", false),
+    GT("=gt=", false),
+    GE("=ge=", false),
+    LT("=lt=", false),
+    LE("=le=", false);
+
+    private final String symbol;
+    private final boolean multiValued;
+
+    static FilterOperator of(String symbol) {
+        for (final var operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
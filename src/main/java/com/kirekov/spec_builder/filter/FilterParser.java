@@ -0,0 +1,95 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.metamodel.EntityAttributes;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parses RSQL-like filters into specifications, e.g. <code>name==John;(age=gt=30,login=like=ab*)</code>.
+ * <ul>
+ *     <li><code>;</code> is <code>AND</code>, <code>,</code> is <code>OR</code>, parentheses group the conditions</li>
+ *     <li><code>==</code> and <code>!=</code> check equality with single value</li>
+ *     <li><code>=in=</code> and <code>=out=</code> compare with the list of values in parentheses</li>
+ *     <li><code>=gt=</code>, <code>=ge=</code>, <code>=lt=</code> and <code>=le=</code> compare with single value</li>
+ *     <li><code>=like=</code> and <code>=ilike=</code> match the pattern where <code>*</code> is the wildcard</li>
+ * </ul>
+ * Values are converted to the types of the fields with {@link ConversionService}.
+ * The filter is split into the shape and the values in single pass. The shape is compiled once
+ * into the template of the specification tree with the fields resolved against the metamodel,
+ * and kept in bounded LRU cache. The filters that differ only by values are not parsed again,
+ * their values are converted and bound into the nodes of the template
+ *
+ * @param <Entity> the type of the entity
+ */
+public class FilterParser<Entity> {
+    public static final int DEFAULT_MAX_SIZE = 256;
+    private static final ConversionService DEFAULT_CONVERSION_SERVICE = new DefaultFormattingConversionService();
+
+    private final EntityAttributes<Entity> attributes;
+    private final ConversionService conversionService;
+    private final Map<String, FilterGroup<Entity>> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FilterParser(EntityAttributes<Entity> attributes) {
+        this(attributes, DEFAULT_CONVERSION_SERVICE, DEFAULT_MAX_SIZE);
+    }
+
+    public FilterParser(EntityAttributes<Entity> attributes, ConversionService conversionService, int maxSize) {
+        this.attributes = attributes;
+        this.conversionService = conversionService;
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FilterGroup<Entity>> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Parses the filter. Blank filter does not restrict the query
+     *
+     * @param filter the filter
+     * @return the specification
+     * @throws IllegalArgumentException if the filter is malformed, refers unknown fields
+     *                                  or contains values that cannot be converted
+     */
+    public BuiltSpecification<Entity> parse(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return FluentSpecificationBuilder.combinedWithAnd(attributes).build();
+        }
+        final var tokenized = FilterTokenizer.tokenize(filter);
+        return getTemplate(tokenized.getShape()).build(tokenized.getValues());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    private FilterGroup<Entity> getTemplate(String shape) {
+        final var template = templates.get(shape);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        final var compiled = FilterCompiler.compile(shape, attributes, conversionService);
+        templates.put(shape, compiled);
+        return compiled;
+    }
+}
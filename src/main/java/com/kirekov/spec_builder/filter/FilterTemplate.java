@@ -0,0 +1,14 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import java.util.List;
+
+/**
+ * Compiled part of the filter. Creates the node of the specification tree binding the values by their slots
+ *
+ * @param <Entity> the type of the entity
+ */
+interface FilterTemplate<Entity> {
+    SpecificationNode<Entity> bind(List<String> values);
+}
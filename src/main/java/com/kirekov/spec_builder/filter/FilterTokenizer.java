@@ -0,0 +1,145 @@
+package com.kirekov.spec_builder.filter;
+
+import java.util.ArrayList;
+
+/**
+ * Single-pass tokenizer that extracts the values from the filter.
+ * Values are replaced with {@link #SLOT} in the shape, whitespaces outside of the values are dropped.
+ * Values can be quoted with <code>"</code> or <code>'</code>, backslash escapes the next character inside quotes
+ */
+final class FilterTokenizer {
+    static final char SLOT = '?';
+
+    private final String filter;
+    private final StringBuilder shape;
+    private final ArrayList<String> values = new ArrayList<>();
+    private int position;
+
+    private FilterTokenizer(String filter) {
+        this.filter = filter;
+        this.shape = new StringBuilder(filter.length());
+    }
+
+    static TokenizedFilter tokenize(String filter) {
+        final var tokenizer = new FilterTokenizer(filter);
+        tokenizer.run();
+        return new TokenizedFilter(tokenizer.shape.toString(), tokenizer.values);
+    }
+
+    private void run() {
+        while (position < filter.length()) {
+            final var c = filter.charAt(position);
+            if (c == '!' || c == '=') {
+                operator();
+                arguments();
+            } else if (c == SLOT) {
+                throw error("Unexpected character '" + c + "'");
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    shape.append(c);
+                }
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Copies <code>==</code>, <code>!=</code> or <code>=name=</code>
+     */
+    private void operator() {
+        final var start = position;
+        shape.append(filter.charAt(position++));
+        while (position < filter.length() && Character.isLetter(filter.charAt(position))) {
+            shape.append(filter.charAt(position++));
+        }
+        final var negation = filter.charAt(start) == '!';
+        if (position == filter.length() || filter.charAt(position) != '=' || negation && position > start + 1) {
+            position = start;
+            throw error("Invalid operator");
+        }
+        shape.append(filter.charAt(position++));
+    }
+
+    private void arguments() {
+        skipWhitespaces();
+        if (position < filter.length() && filter.charAt(position) == '(') {
+            shape.append('(');
+            position++;
+            value();
+            skipWhitespaces();
+            while (position < filter.length() && filter.charAt(position) == ',') {
+                shape.append(',');
+                position++;
+                value();
+                skipWhitespaces();
+            }
+            if (position == filter.length() || filter.charAt(position) != ')') {
+                throw error("Expected ')'");
+            }
+            shape.append(')');
+            position++;
+        } else {
+            value();
+        }
+    }
+
+    private void value() {
+        skipWhitespaces();
+        if (position == filter.length()) {
+            throw error("Expected value");
+        }
+        final var quote = filter.charAt(position);
+        if (quote == '"' || quote == '\'') {
+            quotedValue(quote);
+        } else {
+            unquotedValue();
+        }
+        shape.append(SLOT);
+    }
+
+    private void quotedValue(char quote) {
+        final var start = position++;
+        final var value = new StringBuilder();
+        while (position < filter.length() && filter.charAt(position) != quote) {
+            if (filter.charAt(position) == '\\' && position + 1 < filter.length()) {
+                position++;
+            }
+            value.append(filter.charAt(position++));
+        }
+        if (position == filter.length()) {
+            position = start;
+            throw error("Unterminated quoted value");
+        }
+        position++;
+        values.add(value.toString());
+    }
+
+    private void unquotedValue() {
+        final var start = position;
+        while (position < filter.length() && !isValueEnd(filter.charAt(position))) {
+            position++;
+        }
+        var end = position;
+        while (end > start && Character.isWhitespace(filter.charAt(end - 1))) {
+            end--;
+        }
+        if (end == start) {
+            throw error("Expected value");
+        }
+        values.add(filter.substring(start, end));
+    }
+
+    private static boolean isValueEnd(char c) {
+        return c == ';' || c == ',' || c == ')' || c == '(' || c == '"' || c == '\'';
+    }
+
+    private void skipWhitespaces() {
+        while (position < filter.length() && Character.isWhitespace(filter.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of filter '" + filter + "'");
+    }
+}
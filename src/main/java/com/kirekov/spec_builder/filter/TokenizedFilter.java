@@ -0,0 +1,14 @@
+package com.kirekov.spec_builder.filter;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Filter split into the shape with value slots, e.g. <code>name==?;age=in=(?,?)</code>, and the raw values
+ */
+@Value
+class TokenizedFilter {
+    String shape;
+    List<String> values;
+}
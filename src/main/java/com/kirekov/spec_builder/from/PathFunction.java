@@ -4,7 +4,13 @@ import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Root;
 import java.util.function.Function;
 
-public interface PathFunction<Entity> extends Function<Root<Entity>, Expression<String>> {
+/**
+ * Defines the expression the condition is applied to
+ *
+ * @param <Entity> the type of the entity
+ * @param <T>      the type of the expression
+ */
+public interface PathFunction<Entity, T> extends Function<Root<Entity>, Expression<T>> {
     @Override
-    Expression<String> apply(Root<Entity> root);
+    Expression<T> apply(Root<Entity> root);
 }
@@ -0,0 +1,166 @@
+package com.kirekov.spec_builder.keyset;
+
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination over specifications. Instead of skipping rows with <code>OFFSET</code>
+ * the next page is requested with the predicate <code>(a &gt; ?) OR (a = ? AND b &gt; ?)</code>
+ * built from the sort key of the last seen row, so every page costs the same.
+ * The sort has to end with the unique key, e.g. <code>id</code>, and the sort keys must not be null.
+ * Ignore-case orders of string keys are compared with <code>upper(...)</code> like
+ * {@link QueryUtils#toOrders} orders them. Explicit null handling is not supported
+ *
+ * @param <Entity> the type of the entity
+ */
+public class Keyset<Entity> {
+    private final Sort sort;
+    private final List<Sort.Order> orders;
+
+    private Keyset(Sort sort) {
+        this.sort = sort;
+        this.orders = sort.toList();
+    }
+
+    public static <Entity> Keyset<Entity> sortedBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            throw new IllegalArgumentException("Keyset requires at least one sort key");
+        }
+        for (final var order : sort) {
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                throw new IllegalArgumentException("Keyset does not support null handling of " + order.getProperty());
+            }
+        }
+        return new Keyset<>(sort);
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Returns the request for the first page of {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor}
+     *
+     * @param size the size of the page
+     * @return the page request
+     */
+    public Pageable pageable(int size) {
+        return PageRequest.of(0, size, sort);
+    }
+
+    /**
+     * Restricts the specification with the rows that follow the token.
+     * The decoded values are added to the query as literals, and Hibernate inlines numeric literals into SQL,
+     * so every page produces another statement unless <code>hibernate.criteria.literal_handling_mode</code>
+     * is <code>bind</code>. {@link KeysetExecutor} binds them as parameters in any mode
+     *
+     * @param specification the specification, can be null
+     * @param token         the token returned by {@link #tokenOf(Object)}. Null token means the first page
+     * @return the specification
+     */
+    public Specification<Entity> after(Specification<Entity> specification, String token) {
+        if (token == null) {
+            return Specification.where(specification);
+        }
+        final var values = decode(token);
+        final Specification<Entity> seek = (root, query, criteriaBuilder) -> seekPredicate(
+                root,
+                criteriaBuilder,
+                values.stream().map(criteriaBuilder::literal).collect(Collectors.toList())
+        );
+        return Specification.where(specification).and(seek);
+    }
+
+    /**
+     * @param token the token returned by {@link #tokenOf(Object)}
+     * @return the values of the sort keys
+     */
+    List<Object> decode(String token) {
+        final var values = KeysetToken.decode(token);
+        if (values.size() != orders.size()) {
+            throw new IllegalArgumentException("Keyset token does not match the sort: " + token);
+        }
+        return values;
+    }
+
+    /**
+     * Creates the opaque token that points to the row following the given entity.
+     * The values are read with getters, so uninitialized proxies are loaded
+     *
+     * @param entity the last seen entity
+     * @return the token
+     */
+    public String tokenOf(Entity entity) {
+        final var accessor = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        final var values = orders.stream()
+                .map(order -> accessor.getPropertyValue(order.getProperty()))
+                .collect(Collectors.toList());
+        return KeysetToken.encode(values);
+    }
+
+    /**
+     * Creates the predicate <code>(a &gt; ?) OR (a = ? AND b &gt; ?)</code> with the given expressions of the values
+     *
+     * @param root            the root
+     * @param criteriaBuilder the criteria builder
+     * @param values          the literals or the parameters of the sort key values in the order of the sort
+     * @return the predicate
+     */
+    Predicate seekPredicate(Root<Entity> root, CriteriaBuilder criteriaBuilder, List<? extends Expression<?>> values) {
+        final var keys = new ArrayList<Expression<Comparable<Object>>>(orders.size());
+        final var keyValues = new ArrayList<Expression<Comparable<Object>>>(orders.size());
+        final var alternatives = new Predicate[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            final var order = orders.get(i);
+            final Path<Comparable<Object>> path = get(root, order.getProperty());
+            final var ignoreCase = order.isIgnoreCase() && String.class.equals(path.getJavaType());
+            final var key = ignoreCase ? upper(path, criteriaBuilder) : path;
+            final var value = ignoreCase
+                    ? upper(values.get(i), criteriaBuilder)
+                    : asComparable(values.get(i));
+            final var conditions = new Predicate[i + 1];
+            for (int j = 0; j < i; j++) {
+                conditions[j] = criteriaBuilder.equal(keys.get(j), keyValues.get(j));
+            }
+            conditions[i] = order.isAscending()
+                    ? criteriaBuilder.greaterThan(key, value)
+                    : criteriaBuilder.lessThan(key, value);
+            alternatives[i] = criteriaBuilder.and(conditions);
+            keys.add(key);
+            keyValues.add(value);
+        }
+        return criteriaBuilder.or(alternatives);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression<Comparable<Object>> upper(Expression<?> expression, CriteriaBuilder criteriaBuilder) {
+        return (Expression) criteriaBuilder.upper((Expression<String>) expression);
+    }
+
+    private static <T> Path<T> get(Root<?> root, String property) {
+        Path<?> path = root;
+        for (final var name : property.split("\\.")) {
+            path = path.get(name);
+        }
+        @SuppressWarnings("unchecked") final var result = (Path<T>) path;
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression<Comparable<Object>> asComparable(Expression<?> value) {
+        return (Expression) value;
+    }
+}
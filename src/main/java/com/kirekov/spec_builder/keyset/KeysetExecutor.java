@@ -0,0 +1,68 @@
+package com.kirekov.spec_builder.keyset;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes keyset pagination. Unlike {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor}
+ * it does not run count query and fetches one extra row to find out whether the next page exists.
+ * The values of the token are bound as parameters, so every page after the first one runs the same statement
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+public class KeysetExecutor<Entity> {
+    private final EntityManager entityManager;
+    private final Class<Entity> domainClass;
+
+    public KeysetPage<Entity> findPage(Specification<Entity> specification, Keyset<Entity> keyset, String token, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + size);
+        }
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(domainClass);
+        final var root = query.from(domainClass);
+        final List<Object> values = token == null ? List.of() : keyset.decode(token);
+        final var parameters = new ArrayList<ParameterExpression<Object>>(values.size());
+        for (final var value : values) {
+            parameters.add(parameterOf(criteriaBuilder, value));
+        }
+        final var predicates = new ArrayList<Predicate>(2);
+        final var predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (!parameters.isEmpty()) {
+            predicates.add(keyset.seekPredicate(root, criteriaBuilder, parameters));
+        }
+        if (!predicates.isEmpty()) {
+            query.where(predicates.toArray(new Predicate[0]));
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(keyset.getSort(), root, criteriaBuilder));
+        final var typedQuery = entityManager.createQuery(query);
+        for (int i = 0; i < parameters.size(); i++) {
+            typedQuery.setParameter(parameters.get(i), values.get(i));
+        }
+        final var rows = typedQuery
+                .setMaxResults(size + 1)
+                .getResultList();
+        if (rows.size() <= size) {
+            return new KeysetPage<>(List.copyOf(rows), null);
+        }
+        final var content = List.copyOf(rows.subList(0, size));
+        return new KeysetPage<>(content, keyset.tokenOf(content.get(size - 1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ParameterExpression<Object> parameterOf(CriteriaBuilder criteriaBuilder, Object value) {
+        return criteriaBuilder.parameter((Class<Object>) value.getClass());
+    }
+}
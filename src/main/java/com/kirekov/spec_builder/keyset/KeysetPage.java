@@ -0,0 +1,23 @@
+package com.kirekov.spec_builder.keyset;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Page of the keyset pagination
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class KeysetPage<Entity> {
+    List<Entity> content;
+    /**
+     * The token of the next page or null if this page is the last one
+     */
+    String nextToken;
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.kirekov.spec_builder.keyset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes the values of the last seen sort key into URL-safe string.
+ * Only well-known value types are supported, so decoding the token received from the client
+ * never instantiates arbitrary classes
+ */
+final class KeysetToken {
+    private KeysetToken() {
+    }
+
+    static String encode(List<Object> values) {
+        final var bytes = new ByteArrayOutputStream();
+        try (final var output = new DataOutputStream(bytes)) {
+            output.writeByte(values.size());
+            for (final var value : values) {
+                output.writeByte(tagOf(value));
+                output.writeUTF(value.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    static List<Object> decode(String token) {
+        try (final var input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            final var size = input.readUnsignedByte();
+            final var values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(parse((char) input.readUnsignedByte(), input.readUTF()));
+            }
+            return values;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token, e);
+        }
+    }
+
+    private static char tagOf(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Sort key values must not be null");
+        }
+        if (value instanceof String) {
+            return 'S';
+        } else if (value instanceof Long) {
+            return 'J';
+        } else if (value instanceof Integer) {
+            return 'I';
+        } else if (value instanceof Short) {
+            return 'H';
+        } else if (value instanceof Double) {
+            return 'D';
+        } else if (value instanceof Float) {
+            return 'F';
+        } else if (value instanceof BigDecimal) {
+            return 'B';
+        } else if (value instanceof BigInteger) {
+            return 'N';
+        } else if (value instanceof Boolean) {
+            return 'Z';
+        } else if (value instanceof UUID) {
+            return 'U';
+        } else if (value instanceof LocalDate) {
+            return 'd';
+        } else if (value instanceof LocalDateTime) {
+            return 't';
+        } else if (value instanceof OffsetDateTime) {
+            return 'o';
+        } else if (value instanceof Instant) {
+            return 'i';
+        }
+        throw new IllegalArgumentException("Unsupported sort key type: " + value.getClass().getName());
+    }
+
+    private static Object parse(char tag, String value) {
+        switch (tag) {
+            case 'S':
+                return value;
+            case 'J':
+                return Long.valueOf(value);
+            case 'I':
+                return Integer.valueOf(value);
+            case 'H':
+                return Short.valueOf(value);
+            case 'D':
+                return Double.valueOf(value);
+            case 'F':
+                return Float.valueOf(value);
+            case 'B':
+                return new BigDecimal(value);
+            case 'N':
+                return new BigInteger(value);
+            case 'Z':
+                return Boolean.valueOf(value);
+            case 'U':
+                return UUID.fromString(value);
+            case 'd':
+                return LocalDate.parse(value);
+            case 't':
+                return LocalDateTime.parse(value);
+            case 'o':
+                return OffsetDateTime.parse(value);
+            case 'i':
+                return Instant.parse(value);
+            default:
+                throw new IllegalArgumentException("Unknown value tag: " + tag);
+        }
+    }
+}
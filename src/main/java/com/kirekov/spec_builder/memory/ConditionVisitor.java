@@ -0,0 +1,238 @@
+package com.kirekov.spec_builder.memory;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.IgnoreCaseStrategy;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.NodePath;
+import com.kirekov.spec_builder.node.NodeVisitor;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import javax.persistence.criteria.JoinType;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Compiles the specification tree to {@link RowCondition} the same way
+ * {@link com.kirekov.spec_builder.node.PredicateVisitor} lowers it to JPA predicate.
+ * Returns <code>null</code> if the tree does not restrict the entities
+ *
+ * @param <Entity> the type of the entity
+ */
+class ConditionVisitor<Entity> implements NodeVisitor<Entity, RowCondition> {
+    private final Joins joins;
+    private final PredicateOptions options;
+
+    ConditionVisitor(Joins joins, PredicateOptions options) {
+        this.joins = joins;
+        this.options = options;
+    }
+
+    @Override
+    public RowCondition visitEq(EqNode<Entity> node) {
+        final var expected = node.getValue();
+        return condition(node.getPath(), Collections.singletonList(expected), value -> SqlValues.eq(value, expected));
+    }
+
+    @Override
+    public RowCondition visitIn(InNode<Entity> node) {
+        final var expected = node.getValues();
+        return condition(node.getPath(), expected, value -> SqlValues.in(value, expected));
+    }
+
+    @Override
+    public RowCondition visitLike(LikeNode<Entity> node) {
+        if (node.getPattern() == null) {
+            return condition(node.getPath(), List.of(), value -> null);
+        }
+        final var pattern = SqlValues.likeToRegex(node.getPattern());
+        return condition(node.getPath(), List.of(), value -> SqlValues.matches(value, pattern));
+    }
+
+    /**
+     * The value is lower-cased with {@link Locale#ROOT} like the pattern.
+     * Shadow field is expected to store the lower-cased value, so it is compared as is
+     */
+    @Override
+    public RowCondition visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        if (node.getPattern() == null) {
+            return condition(node.getPath(), List.of(), value -> null);
+        }
+        final var pattern = SqlValues.likeToRegex(node.getPattern().toLowerCase(Locale.ROOT));
+        final var strategy = options.getIgnoreCaseStrategy();
+        if (strategy.getMode() == IgnoreCaseStrategy.Mode.SHADOW_FIELD) {
+            final var field = fieldOf(node.getPath()) + strategy.getShadowFieldSuffix();
+            return condition(field, List.of(), value -> SqlValues.matches(value, pattern));
+        }
+        return condition(
+                node.getPath(),
+                List.of(),
+                value -> SqlValues.matches(value == null ? null : value.toString().toLowerCase(Locale.ROOT), pattern)
+        );
+    }
+
+    @Override
+    public RowCondition visitComparison(ComparisonNode<Entity> node) {
+        final var expected = node.getValue();
+        final var operator = node.getOperator();
+        return condition(node.getPath(), Collections.singletonList(expected), value -> {
+            if (value == null) {
+                return null;
+            }
+            final var result = SqlValues.compare(value, expected);
+            switch (operator) {
+                case GT:
+                    return result > 0;
+                case GE:
+                    return result >= 0;
+                case LT:
+                    return result < 0;
+                case LE:
+                    return result <= 0;
+                default:
+                    throw new IllegalStateException("Unsupported operator " + operator);
+            }
+        });
+    }
+
+    @Override
+    public RowCondition visitBetween(BetweenNode<Entity> node) {
+        final var lower = node.getLower();
+        final var upper = node.getUpper();
+        return condition(
+                node.getPath(),
+                Arrays.asList(lower, upper),
+                value -> value == null
+                        ? null
+                        : SqlValues.compare(value, lower) >= 0 && SqlValues.compare(value, upper) <= 0
+        );
+    }
+
+    @Override
+    public RowCondition visitNot(NotNode<Entity> node) {
+        final var condition = node.getNode().accept(this);
+        return condition == null ? null : row -> SqlValues.not(condition.test(row));
+    }
+
+    @Override
+    public RowCondition visitAnd(AndNode<Entity> node) {
+        return combine(node.getNodes(), SqlValues::and);
+    }
+
+    @Override
+    public RowCondition visitOr(OrNode<Entity> node) {
+        return combine(node.getNodes(), SqlValues::or);
+    }
+
+    @Override
+    public RowCondition visitCustom(CustomNode<Entity> node) {
+        throw new IllegalArgumentException("Custom specification cannot be evaluated in memory");
+    }
+
+    @Override
+    public RowCondition visitConstant(ConstantNode<Entity> node) {
+        final var value = node.isValue();
+        return row -> value;
+    }
+
+    private RowCondition condition(NodePath<Entity> path, Collection<?> expected, Function<Object, Boolean> test) {
+        return condition(fieldOf(path), expected, test);
+    }
+
+    /**
+     * Checks the field of the joined element. If the field is applied as <code>EXISTS</code> subquery,
+     * the elements are joined separately, and the condition is true if any of them matches.
+     * The expected values are checked against the type of the field when the condition is compiled
+     */
+    private RowCondition condition(String field, Collection<?> expected, Function<Object, Boolean> test) {
+        if (requiresSubquery(field)) {
+            final var subqueryJoins = new Joins(joins.getRootType(), JoinType.INNER);
+            final var value = subqueryJoins.resolve(field);
+            checkTypes(field, value.getProperty().getType(), expected);
+            final RowCondition condition = row -> test.apply(value.get(row));
+            return row -> subqueryJoins.matches(row[0], condition);
+        }
+        final var value = joins.resolve(field);
+        checkTypes(field, value.getProperty().getType(), expected);
+        return row -> test.apply(value.get(row));
+    }
+
+    /**
+     * Numbers of any type are compared by value, other values have to be instances of the type of the field
+     *
+     * @throws IllegalArgumentException if the value cannot be compared with the field
+     */
+    private static void checkTypes(String field, Class<?> type, Collection<?> expected) {
+        final var wrapped = MethodType.methodType(type).wrap().returnType();
+        for (final var value : expected) {
+            if (value == null || wrapped.isInstance(value)
+                    || value instanceof Number && Number.class.isAssignableFrom(wrapped)) {
+                continue;
+            }
+            throw new IllegalArgumentException(
+                    "Value of type " + value.getClass().getName() + " cannot be compared with field '" + field
+                            + "' of type " + type.getName()
+            );
+        }
+    }
+
+    private boolean requiresSubquery(String field) {
+        final var associationMode = options.getAssociationMode();
+        if (associationMode == AssociationMode.JOIN) {
+            return false;
+        }
+        if (associationMode == AssociationMode.EXISTS && field.indexOf('.') >= 0) {
+            return true;
+        }
+        return joins.crossesPlural(field);
+    }
+
+    private RowCondition combine(List<SpecificationNode<Entity>> nodes, BinaryOperator<Boolean> operator) {
+        final var conditions = new ArrayList<RowCondition>(nodes.size());
+        for (final var node : nodes) {
+            final var condition = node.accept(this);
+            if (condition != null) {
+                conditions.add(condition);
+            }
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        final var operands = conditions.toArray(new RowCondition[0]);
+        return row -> {
+            Boolean result = operands[0].test(row);
+            for (int i = 1; i < operands.length; i++) {
+                result = operator.apply(result, operands[i].test(row));
+            }
+            return result;
+        };
+    }
+
+    private String fieldOf(NodePath<Entity> path) {
+        if (!(path instanceof FieldPath)) {
+            throw new IllegalArgumentException("Path function cannot be evaluated in memory");
+        }
+        return ((FieldPath<Entity>) path).getField();
+    }
+}
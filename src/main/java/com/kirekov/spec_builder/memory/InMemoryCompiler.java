@@ -0,0 +1,64 @@
+package com.kirekov.spec_builder.memory;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import javax.persistence.criteria.JoinType;
+import java.util.function.Predicate;
+
+/**
+ * Compiles the specification tree to {@link Predicate} that filters the entities in memory,
+ * e.g. the reference data kept in the cache. The predicate selects the same entities as the query:
+ * <ul>
+ *     <li>comparisons with <code>NULL</code> are unknown, and unknown is not matched even under <code>NOT</code></li>
+ *     <li><code>like</code> matches the whole value, <code>%</code> and <code>_</code> are wildcards
+ *     and backslash escapes them</li>
+ *     <li>dotted paths behave as joins of {@link PredicateOptions#getJoinType()},
+ *     so the conditions on the same association are checked against the same element.
+ *     Conditions applied as <code>EXISTS</code> subqueries check the elements independently</li>
+ * </ul>
+ * Values that cannot be compared with the type of the field are rejected when the predicate is compiled.
+ * <p>
+ * Strings are compared by their code points, like binary collation does.
+ * The database with case-insensitive or linguistic collation of the column can match the rows
+ * the predicate does not, e.g. <code>name = 'john'</code> matches <code>John</code>.
+ * Use <code>likeIgnoreCase</code> for such columns, or do not evaluate these conditions in memory.
+ * <p>
+ * The fields are read with the getters or the fields of the entity classes.
+ * The accessors are created once per class and field.
+ * {@link com.kirekov.spec_builder.node.CustomNode} and {@link com.kirekov.spec_builder.node.FunctionPath}
+ * hold JPA criteria, so they cannot be compiled
+ */
+public final class InMemoryCompiler {
+    private InMemoryCompiler() {
+    }
+
+    public static <Entity> Predicate<Entity> compile(BuiltSpecification<Entity> specification, Class<Entity> domainClass) {
+        return compile(specification.getNode(), domainClass, specification.getOptions());
+    }
+
+    /**
+     * Compiles the tree
+     *
+     * @param node        the root of the tree
+     * @param domainClass the class of the entity
+     * @param options     the options the tree is lowered with
+     * @param <Entity>    the type of the entity
+     * @return the predicate
+     * @throws IllegalArgumentException if the tree holds custom specifications or path functions,
+     *                                  the field is not found or the value cannot be compared with it
+     */
+    public static <Entity> Predicate<Entity> compile(
+            SpecificationNode<Entity> node,
+            Class<Entity> domainClass,
+            PredicateOptions options
+    ) {
+        if (options.getJoinType() == JoinType.RIGHT) {
+            throw new IllegalArgumentException("Right join cannot be evaluated in memory");
+        }
+        final var joins = new Joins(domainClass, options.getJoinType());
+        final var condition = node.accept(new ConditionVisitor<>(joins, options));
+        return entity -> joins.matches(entity, condition);
+    }
+}
@@ -0,0 +1,133 @@
+package com.kirekov.spec_builder.memory;
+
+import lombok.Value;
+
+import javax.persistence.criteria.JoinType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Joins of the dotted paths. The entity is matched if any combination of the joined elements
+ * satisfies the condition, just like the joined rows of the query.
+ * Inner join of the empty association produces no rows, left join binds <code>null</code> instead
+ */
+class Joins {
+    private final Class<?> rootType;
+    private final JoinType joinType;
+    private final List<Join> joins = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    Joins(Class<?> rootType, JoinType joinType) {
+        this.rootType = rootType;
+        this.joinType = joinType;
+    }
+
+    Class<?> getRootType() {
+        return rootType;
+    }
+
+    /**
+     * Resolves the field, the associations of the dotted field are joined
+     *
+     * @param field the field
+     * @return the value of the field in the row
+     */
+    RowValue resolve(String field) {
+        final var lastDot = field.lastIndexOf('.');
+        final var slot = lastDot < 0 ? 0 : join(field.substring(0, lastDot));
+        final var property = Property.of(typeOf(slot), field.substring(lastDot + 1));
+        if (property.isPlural()) {
+            throw new IllegalArgumentException("Collection " + field + " cannot be compared");
+        }
+        return new RowValue(slot, property);
+    }
+
+    /**
+     * Checks whether the path goes through the collection or ends with it
+     *
+     * @param field the field
+     * @return true if any property in the path is a collection
+     */
+    boolean crossesPlural(String field) {
+        Class<?> type = rootType;
+        for (final var name : field.split("\\.")) {
+            final var property = Property.of(type, name);
+            if (property.isPlural()) {
+                return true;
+            }
+            type = property.getType();
+        }
+        return false;
+    }
+
+    boolean matches(Object entity, RowCondition condition) {
+        if (condition == null) {
+            return true;
+        }
+        final var row = new Object[joins.size() + 1];
+        row[0] = entity;
+        return bind(row, 0, condition);
+    }
+
+    private boolean bind(Object[] row, int index, RowCondition condition) {
+        if (index == joins.size()) {
+            return Boolean.TRUE.equals(condition.test(row));
+        }
+        final var join = joins.get(index);
+        final var elements = join.getProperty().elementsOf(row[join.getParentSlot()]);
+        if (elements.isEmpty()) {
+            if (joinType == JoinType.INNER) {
+                return false;
+            }
+            row[index + 1] = null;
+            return bind(row, index + 1, condition);
+        }
+        for (final var element : elements) {
+            row[index + 1] = element;
+            if (bind(row, index + 1, condition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int join(String path) {
+        final var cached = slots.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        final var lastDot = path.lastIndexOf('.');
+        final var parentSlot = lastDot < 0 ? 0 : join(path.substring(0, lastDot));
+        final var property = Property.of(typeOf(parentSlot), path.substring(lastDot + 1));
+        joins.add(new Join(parentSlot, property));
+        final var slot = joins.size();
+        slots.put(path, slot);
+        return slot;
+    }
+
+    private Class<?> typeOf(int slot) {
+        return slot == 0 ? rootType : joins.get(slot - 1).getProperty().getType();
+    }
+
+    @Value
+    private static class Join {
+        int parentSlot;
+        Property property;
+    }
+
+    /**
+     * The field of the element bound to the slot of the row
+     */
+    @Value
+    static class RowValue {
+        int slot;
+        Property property;
+
+        Object get(Object[] row) {
+            final var owner = row[slot];
+            return owner == null ? null : property.get(owner);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.kirekov.spec_builder.memory;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Reads the field of the entity. The getter is called through the function generated with {@link LambdaMetafactory},
+ * so reading is as fast as the direct call. The field without the getter is read with {@link MethodHandle}.
+ * The properties are cached per class and name
+ */
+final class Property {
+    private static final ClassValue<Map<String, Property>> PROPERTIES = new ClassValue<>() {
+        @Override
+        protected Map<String, Property> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Function<Object, Object> accessor;
+    private final Class<?> type;
+    private final boolean plural;
+
+    private Property(Function<Object, Object> accessor, Class<?> type, boolean plural) {
+        this.accessor = accessor;
+        this.type = type;
+        this.plural = plural;
+    }
+
+    static Property of(Class<?> owner, String name) {
+        return PROPERTIES.get(owner).computeIfAbsent(name, ignored -> resolve(owner, name));
+    }
+
+    Object get(Object owner) {
+        return accessor.apply(owner);
+    }
+
+    /**
+     * @param owner the owner of the association, can be <code>null</code>
+     * @return the elements of the collection or the associated entity
+     */
+    Collection<?> elementsOf(Object owner) {
+        final var value = owner == null ? null : accessor.apply(owner);
+        if (value == null) {
+            return List.of();
+        }
+        return plural ? (Collection<?>) value : List.of(value);
+    }
+
+    /**
+     * @return the type of the field or the type of the elements of the collection
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    boolean isPlural() {
+        return plural;
+    }
+
+    private static Property resolve(Class<?> owner, String name) {
+        final var getter = findGetter(owner, name);
+        if (getter != null) {
+            return create(accessorOf(getter), getter.getReturnType(), getter.getGenericReturnType());
+        }
+        final var field = findField(owner, name);
+        if (field != null) {
+            return create(accessorOf(field), field.getType(), field.getGenericType());
+        }
+        throw new IllegalArgumentException("Unknown field " + name + " of " + owner.getName());
+    }
+
+    private static Property create(Function<Object, Object> accessor, Class<?> type, Type genericType) {
+        if (!Collection.class.isAssignableFrom(type)) {
+            return new Property(accessor, type, false);
+        }
+        Class<?> elementType = Object.class;
+        if (genericType instanceof ParameterizedType) {
+            final var argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                elementType = (Class<?>) argument;
+            }
+        }
+        return new Property(accessor, elementType, true);
+    }
+
+    private static Method findGetter(Class<?> owner, String name) {
+        final var capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (Class<?> type = owner; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (final var method : type.getDeclaredMethods()) {
+                if (method.getParameterCount() == 0
+                        && !method.isBridge()
+                        && (method.getName().equals("get" + capitalized)
+                        || method.getName().equals("is" + capitalized) && method.getReturnType() == boolean.class)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> owner, String name) {
+        for (Class<?> type = owner; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (final var field : type.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates the function that calls the getter. If the class cannot be accessed,
+     * e.g. it is loaded by another module, the getter is called through {@link MethodHandle}
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> accessorOf(Method getter) {
+        final MethodHandles.Lookup lookup;
+        final MethodHandle handle;
+        try {
+            lookup = MethodHandles.privateLookupIn(getter.getDeclaringClass(), MethodHandles.lookup());
+            handle = lookup.unreflect(getter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + getter, e);
+        }
+        try {
+            final var site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap()
+            );
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            return invokerOf(handle);
+        }
+    }
+
+    private static Function<Object, Object> accessorOf(Field field) {
+        try {
+            return invokerOf(
+                    MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                            .unreflectGetter(field)
+            );
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + field, e);
+        }
+    }
+
+    private static Function<Object, Object> invokerOf(MethodHandle handle) {
+        final var generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return owner -> {
+            try {
+                return generic.invokeExact(owner);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
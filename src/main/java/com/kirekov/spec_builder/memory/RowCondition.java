@@ -0,0 +1,13 @@
+package com.kirekov.spec_builder.memory;
+
+/**
+ * Condition evaluated against the row of the entity and the joined elements
+ */
+@FunctionalInterface
+interface RowCondition {
+    /**
+     * @param row the entity followed by the joined elements
+     * @return true, false or <code>null</code> if the result is unknown
+     */
+    Boolean test(Object[] row);
+}
@@ -0,0 +1,102 @@
+package com.kirekov.spec_builder.memory;
+
+import com.kirekov.spec_builder.node.LikePattern;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+/**
+ * Three-valued logic of SQL. <code>null</code> stands for unknown
+ */
+final class SqlValues {
+    private SqlValues() {
+    }
+
+    static Boolean not(Boolean value) {
+        return value == null ? null : !value;
+    }
+
+    static Boolean and(Boolean left, Boolean right) {
+        if (Boolean.FALSE.equals(left) || Boolean.FALSE.equals(right)) {
+            return false;
+        }
+        return left == null || right == null ? null : true;
+    }
+
+    static Boolean or(Boolean left, Boolean right) {
+        if (Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right)) {
+            return true;
+        }
+        return left == null || right == null ? null : false;
+    }
+
+    static Boolean eq(Object value, Object expected) {
+        if (value == null || expected == null) {
+            return null;
+        }
+        return compare(value, expected) == 0;
+    }
+
+    static Boolean in(Object value, Collection<?> expected) {
+        if (expected.isEmpty()) {
+            return false;
+        }
+        Boolean result = false;
+        for (final var candidate : expected) {
+            result = or(result, eq(value, candidate));
+        }
+        return result;
+    }
+
+    /**
+     * Numbers of different types are compared by value, e.g. <code>1</code> equals to <code>1L</code>
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object value, Object expected) {
+        if (value instanceof Number && expected instanceof Number && value.getClass() != expected.getClass()) {
+            return new BigDecimal(value.toString()).compareTo(new BigDecimal(expected.toString()));
+        }
+        if (value instanceof Comparable) {
+            return ((Comparable) value).compareTo(expected);
+        }
+        return value.equals(expected) ? 0 : -1;
+    }
+
+    static Boolean matches(Object value, Pattern pattern) {
+        return value == null ? null : pattern.matcher(value.toString()).matches();
+    }
+
+    /**
+     * Converts <code>like</code> pattern to the regular expression that matches the whole value.
+     * <code>%</code> matches any sequence, <code>_</code> matches single character,
+     * {@link LikePattern#ESCAPE} escapes the next character
+     *
+     * @param pattern the pattern
+     * @return the regular expression
+     */
+    static Pattern likeToRegex(String pattern) {
+        final var regex = new StringBuilder(pattern.length() + 8);
+        final var literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            final var c = pattern.charAt(i);
+            if (c == LikePattern.ESCAPE && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                appendLiteral(regex, literal);
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        appendLiteral(regex, literal);
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static void appendLiteral(StringBuilder regex, StringBuilder literal) {
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+}
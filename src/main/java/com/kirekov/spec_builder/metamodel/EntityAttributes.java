@@ -0,0 +1,119 @@
+package com.kirekov.spec_builder.metamodel;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves field names of the entity against the metamodel and caches the results.
+ * Unknown fields and values of wrong types are rejected with {@link IllegalArgumentException}
+ *
+ * @param <Entity> the type of the entity
+ */
+public class EntityAttributes<Entity> {
+    private static final Map<Class<?>, Class<?>> WRAPPERS = Map.of(
+            boolean.class, Boolean.class,
+            byte.class, Byte.class,
+            char.class, Character.class,
+            short.class, Short.class,
+            int.class, Integer.class,
+            long.class, Long.class,
+            float.class, Float.class,
+            double.class, Double.class
+    );
+
+    private static final Set<Class<?>> INTEGRAL = Set.of(
+            Byte.class, Short.class, Integer.class, Long.class, BigInteger.class
+    );
+
+    private final EntityType<Entity> entityType;
+    private final Map<String, ResolvedPath> paths = new ConcurrentHashMap<>();
+
+    EntityAttributes(EntityType<Entity> entityType) {
+        this.entityType = entityType;
+    }
+
+    public ResolvedPath resolve(String path) {
+        return paths.computeIfAbsent(path, this::doResolve);
+    }
+
+    /**
+     * Resolves the path and checks that the value can be compared with the field.
+     * Numbers are widened the same way as the query binds them:
+     * an integral field accepts any integral number, a floating point or decimal field accepts any number
+     *
+     * @param path  the dotted path
+     * @param value the value, null is always accepted
+     * @return the resolved path
+     */
+    public ResolvedPath resolve(String path, Object value) {
+        final var resolved = resolve(path);
+        if (value != null && !isCompatible(wrap(resolved.getJavaType()), value)) {
+            throw new IllegalArgumentException(
+                    "Value of type " + value.getClass().getName() + " does not match field '" + path + "' of "
+                            + entityType.getName() + " of type " + resolved.getJavaType().getName()
+            );
+        }
+        return resolved;
+    }
+
+    private ResolvedPath doResolve(String path) {
+        final var names = path.split("\\.");
+        final var attributes = new ArrayList<Attribute<?, ?>>(names.length);
+        ManagedType<?> type = entityType;
+        Class<?> javaType = null;
+        for (int i = 0; i < names.length; i++) {
+            final var attribute = getAttribute(type, names[i], path);
+            attributes.add(attribute);
+            final var attributeType = typeOf(attribute);
+            if (i == names.length - 1) {
+                javaType = attributeType.getJavaType();
+            } else if (attributeType instanceof ManagedType) {
+                type = (ManagedType<?>) attributeType;
+            } else {
+                throw new IllegalArgumentException(
+                        "Field '" + names[i] + "' in path '" + path + "' of " + entityType.getName() + " is not an association"
+                );
+            }
+        }
+        return new ResolvedPath(path, Collections.unmodifiableList(attributes), javaType);
+    }
+
+    private Attribute<?, ?> getAttribute(ManagedType<?> type, String name, String path) {
+        try {
+            return type.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field '" + path + "' of " + entityType.getName(), e);
+        }
+    }
+
+    private static Type<?> typeOf(Attribute<?, ?> attribute) {
+        if (attribute instanceof PluralAttribute) {
+            return ((PluralAttribute<?, ?, ?>) attribute).getElementType();
+        }
+        return ((SingularAttribute<?, ?>) attribute).getType();
+    }
+
+    private static boolean isCompatible(Class<?> type, Object value) {
+        if (type.isInstance(value)) {
+            return true;
+        }
+        if (!Number.class.isAssignableFrom(type) || !(value instanceof Number)) {
+            return false;
+        }
+        return !INTEGRAL.contains(type) || INTEGRAL.contains(value.getClass());
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return WRAPPERS.getOrDefault(type, type);
+    }
+}
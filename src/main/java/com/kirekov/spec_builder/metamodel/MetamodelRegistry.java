@@ -0,0 +1,26 @@
+package com.kirekov.spec_builder.metamodel;
+
+import javax.persistence.metamodel.Metamodel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent registry of {@link EntityAttributes} per entity class.
+ * It is supposed to be created once per {@link javax.persistence.EntityManagerFactory}
+ */
+public class MetamodelRegistry {
+    private final Metamodel metamodel;
+    private final Map<Class<?>, EntityAttributes<?>> entities = new ConcurrentHashMap<>();
+
+    public MetamodelRegistry(Metamodel metamodel) {
+        this.metamodel = metamodel;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <Entity> EntityAttributes<Entity> forEntity(Class<Entity> entityClass) {
+        return (EntityAttributes<Entity>) entities.computeIfAbsent(
+                entityClass,
+                type -> new EntityAttributes<>(metamodel.entity(type))
+        );
+    }
+}
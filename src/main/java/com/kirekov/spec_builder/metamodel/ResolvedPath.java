@@ -0,0 +1,22 @@
+package com.kirekov.spec_builder.metamodel;
+
+import lombok.Value;
+
+import javax.persistence.metamodel.Attribute;
+import java.util.List;
+
+/**
+ * Dotted path validated against the metamodel
+ */
+@Value
+public class ResolvedPath {
+    String path;
+    /**
+     * Attributes of every name in the path starting from the root entity
+     */
+    List<Attribute<?, ?>> attributes;
+    /**
+     * Type of the last attribute. For collections it is the type of the element
+     */
+    Class<?> javaType;
+}
@@ -0,0 +1,102 @@
+package com.kirekov.spec_builder.metrics;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decorates {@link JpaSpecificationExecutor} and records {@link SpecificationMetrics}.
+ * The specification is passed to the delegate as is, {@link BuiltSpecification} only gets the listener
+ * of the predicate time, which keeps it equal to the original one
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+class MeteredSpecificationExecutor<Entity> implements JpaSpecificationExecutor<Entity> {
+    private final JpaSpecificationExecutor<Entity> delegate;
+    private final SpecificationMetrics metrics;
+    private final String entity;
+
+    @Override
+    public Optional<Entity> findOne(Specification<Entity> specification) {
+        return execute("findOne", specification, delegate::findOne, result -> result.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification) {
+        return execute("findAll", specification, delegate::findAll, List::size);
+    }
+
+    @Override
+    public Page<Entity> findAll(Specification<Entity> specification, Pageable pageable) {
+        return execute(
+                "findPage",
+                specification,
+                listened -> delegate.findAll(listened, pageable),
+                page -> page.getContent().size()
+        );
+    }
+
+    @Override
+    public List<Entity> findAll(Specification<Entity> specification, Sort sort) {
+        return execute("findAll", specification, listened -> delegate.findAll(listened, sort), List::size);
+    }
+
+    @Override
+    public long count(Specification<Entity> specification) {
+        return execute("count", specification, delegate::count, null);
+    }
+
+    /**
+     * Times the call of the delegate, the failed call is timed as well.
+     * The predicate time is recorded for {@link BuiltSpecification} only,
+     * other specifications are opaque. The rows are not recorded for <code>count</code>,
+     * since it returns a single row
+     */
+    private <R> R execute(
+            String operation,
+            Specification<Entity> specification,
+            Function<Specification<Entity>, R> query,
+            ToLongFunction<R> rows
+    ) {
+        final var tags = Tags.of(
+                "entity", entity,
+                "operation", operation,
+                "fingerprint", metrics.fingerprintOf(specification)
+        );
+        final var startedAt = System.nanoTime();
+        Throwable failure = null;
+        final R result;
+        try {
+            result = query.apply(withPredicateListener(specification, tags));
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.recordQuery(tags, failure, System.nanoTime() - startedAt);
+        }
+        if (rows != null) {
+            metrics.recordRows(tags, rows.applyAsLong(result));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Specification<Entity> withPredicateListener(Specification<Entity> specification, Tags tags) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return specification;
+        }
+        return ((BuiltSpecification<Entity>) specification)
+                .withPredicateListener(nanos -> metrics.recordPredicate(tags, nanos));
+    }
+}
@@ -0,0 +1,164 @@
+package com.kirekov.spec_builder.metrics;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the metrics of the specifications:
+ * <ul>
+ *     <li><code>specification.predicate</code> timer of {@link Specification#toPredicate} calls</li>
+ *     <li><code>specification.query</code> timer of the query execution, including the failed ones,
+ *     additionally tagged with the <code>outcome</code> and the <code>exception</code></li>
+ *     <li><code>specification.rows</code> summary of the number of the returned rows</li>
+ * </ul>
+ * The metrics are tagged with the entity, the operation and the shape fingerprint of {@link BuiltSpecification}.
+ * The fingerprint has field names and operators but no values. The fingerprint longer than
+ * {@link #MAX_FINGERPRINT_LENGTH} is cut and ends with the hash of the whole one. The shapes after
+ * the first <code>maxFingerprints</code> ones are tagged as {@link #OTHER_FINGERPRINT},
+ * so the filters parsed from user input cannot blow up the number of the meters.
+ * Other specifications are tagged as {@link #CUSTOM_FINGERPRINT}, and their predicate time is not recorded.
+ * <p>
+ * The queries that take longer than the threshold are logged with the warning level
+ */
+@Slf4j
+public class SpecificationMetrics {
+    public static final String PREDICATE_TIMER = "specification.predicate";
+    public static final String QUERY_TIMER = "specification.query";
+    public static final String ROWS_SUMMARY = "specification.rows";
+    public static final String OTHER_FINGERPRINT = "other";
+    public static final String CUSTOM_FINGERPRINT = "custom";
+    public static final String SUCCESS_OUTCOME = "SUCCESS";
+    public static final String ERROR_OUTCOME = "ERROR";
+    public static final String NO_EXCEPTION = "none";
+    public static final Duration DEFAULT_SLOW_QUERY_THRESHOLD = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_FINGERPRINTS = 100;
+    public static final int MAX_FINGERPRINT_LENGTH = 128;
+    private static final int FINGERPRINT_HASH_LENGTH = 16;
+
+    private final MeterRegistry registry;
+    private final long slowQueryThresholdNanos;
+    private final int maxFingerprints;
+    private final Set<String> fingerprints = ConcurrentHashMap.newKeySet();
+
+    public SpecificationMetrics(MeterRegistry registry) {
+        this(registry, DEFAULT_SLOW_QUERY_THRESHOLD, DEFAULT_MAX_FINGERPRINTS);
+    }
+
+    public SpecificationMetrics(MeterRegistry registry, Duration slowQueryThreshold, int maxFingerprints) {
+        if (maxFingerprints <= 0) {
+            throw new IllegalArgumentException("Max fingerprints must be positive: " + maxFingerprints);
+        }
+        this.registry = registry;
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Decorates the executor. The specifications are passed to the delegate unchanged,
+     * so the decorator can be combined with other ones in any order.
+     * The query time includes the time of the decorators below it
+     *
+     * @param delegate    the executor, usually the repository
+     * @param domainClass the class of the entity
+     * @param <Entity>    the type of the entity
+     * @return the instrumented executor
+     */
+    public <Entity> JpaSpecificationExecutor<Entity> instrument(
+            JpaSpecificationExecutor<Entity> delegate,
+            Class<Entity> domainClass
+    ) {
+        return new MeteredSpecificationExecutor<>(delegate, this, domainClass.getSimpleName());
+    }
+
+    /**
+     * @param specification the specification
+     * @return the bounded fingerprint of the specification shape
+     */
+    public String fingerprintOf(Specification<?> specification) {
+        if (!(specification instanceof BuiltSpecification)) {
+            return CUSTOM_FINGERPRINT;
+        }
+        final var fingerprint = bounded(((BuiltSpecification<?>) specification).getNode().fingerprint());
+        if (fingerprints.contains(fingerprint)) {
+            return fingerprint;
+        }
+        synchronized (fingerprints) {
+            if (fingerprints.size() >= maxFingerprints) {
+                return OTHER_FINGERPRINT;
+            }
+            fingerprints.add(fingerprint);
+            return fingerprint;
+        }
+    }
+
+    private static String bounded(String fingerprint) {
+        if (fingerprint.length() <= MAX_FINGERPRINT_LENGTH) {
+            return fingerprint;
+        }
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        final var hex = new StringBuilder(FINGERPRINT_HASH_LENGTH);
+        for (int i = 0; hex.length() < FINGERPRINT_HASH_LENGTH; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return fingerprint.substring(0, MAX_FINGERPRINT_LENGTH - FINGERPRINT_HASH_LENGTH - 1) + "#" + hex;
+    }
+
+    void recordPredicate(Tags tags, long nanos) {
+        Timer.builder(PREDICATE_TIMER)
+                .description("Time of building the predicate of the specification")
+                .tags(tags)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The failed queries are recorded too, they are told apart by the <code>outcome</code>
+     * and the <code>exception</code> tags
+     *
+     * @param tags    the tags of the specification
+     * @param failure the exception thrown by the query or <code>null</code>
+     * @param nanos   the time of the query
+     */
+    void recordQuery(Tags tags, Throwable failure, long nanos) {
+        final var queryTags = tags.and(
+                "outcome", failure == null ? SUCCESS_OUTCOME : ERROR_OUTCOME,
+                "exception", failure == null ? NO_EXCEPTION : failure.getClass().getSimpleName()
+        );
+        Timer.builder(QUERY_TIMER)
+                .description("Time of executing the query of the specification")
+                .tags(queryTags)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > slowQueryThresholdNanos) {
+            log.warn("Slow specification query {} took {} ms", queryTags, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    void recordRows(Tags tags, long rows) {
+        DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Number of the rows returned by the specification")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(registry)
+                .record(rows);
+    }
+}
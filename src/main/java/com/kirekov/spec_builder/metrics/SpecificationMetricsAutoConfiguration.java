@@ -0,0 +1,30 @@
+package com.kirekov.spec_builder.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers {@link SpecificationMetrics} if Micrometer is on the classpath and {@link MeterRegistry} is defined.
+ * The repositories are not instrumented automatically, wrap them with
+ * {@link SpecificationMetrics#instrument(org.springframework.data.jpa.repository.JpaSpecificationExecutor, Class)}
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "spec-builder.metrics", name = "enabled", matchIfMissing = true)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@EnableConfigurationProperties(SpecificationMetricsProperties.class)
+public class SpecificationMetricsAutoConfiguration {
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean
+    public SpecificationMetrics specificationMetrics(MeterRegistry registry, SpecificationMetricsProperties properties) {
+        return new SpecificationMetrics(registry, properties.getSlowQueryThreshold(), properties.getMaxFingerprints());
+    }
+}
@@ -0,0 +1,28 @@
+package com.kirekov.spec_builder.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Properties of {@link SpecificationMetrics} with the prefix <code>spec-builder.metrics</code>
+ */
+@Getter
+@Setter
+@ConfigurationProperties("spec-builder.metrics")
+public class SpecificationMetricsProperties {
+    /**
+     * Whether the metrics are recorded
+     */
+    private boolean enabled = true;
+    /**
+     * The queries that take longer are logged
+     */
+    private Duration slowQueryThreshold = SpecificationMetrics.DEFAULT_SLOW_QUERY_THRESHOLD;
+    /**
+     * Max number of distinct fingerprints used as tags
+     */
+    private int maxFingerprints = SpecificationMetrics.DEFAULT_MAX_FINGERPRINTS;
+}
@@ -0,0 +1,22 @@
+package com.kirekov.spec_builder.node;
+
+/**
+ * Defines how conditions on dotted paths like <code>roles.name</code> are applied
+ */
+public enum AssociationMode {
+    /**
+     * The associations are joined to the root. Conditions on to-many associations
+     * may produce duplicates, so the specification usually has to be distinct
+     */
+    JOIN,
+    /**
+     * Every condition on the association or the collection is applied as correlated <code>EXISTS</code> subquery.
+     * The root is never joined, so there are no duplicates
+     */
+    EXISTS,
+    /**
+     * Conditions that go through collection attributes or compare the collection itself,
+     * e.g. <code>roles</code>, are applied as <code>EXISTS</code> subqueries, singular associations are joined
+     */
+    AUTO
+}
@@ -0,0 +1,20 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+/**
+ * Checks that the value is within the inclusive range
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class BetweenNode<Entity> implements SpecificationNode<Entity> {
+    NodePath<Entity> path;
+    Object lower;
+    Object upper;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitBetween(this);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+@Value
+public class ComparisonNode<Entity> implements SpecificationNode<Entity> {
+    NodePath<Entity> path;
+    ComparisonOperator operator;
+    Object value;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitComparison(this);
+    }
+}
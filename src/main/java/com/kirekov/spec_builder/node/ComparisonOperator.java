@@ -0,0 +1,11 @@
+package com.kirekov.spec_builder.node;
+
+/**
+ * Operators of {@link ComparisonNode}
+ */
+public enum ComparisonOperator {
+    GT,
+    GE,
+    LT,
+    LE
+}
@@ -0,0 +1,18 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+/**
+ * Condition that is always true or always false
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class ConstantNode<Entity> implements SpecificationNode<Entity> {
+    boolean value;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitConstant(this);
+    }
+}
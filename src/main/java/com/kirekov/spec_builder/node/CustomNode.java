@@ -0,0 +1,20 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Holds user defined {@link Specification}. It cannot be inspected,
+ * so two custom nodes are equal only if they hold equal specifications
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class CustomNode<Entity> implements SpecificationNode<Entity> {
+    Specification<Entity> specification;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitCustom(this);
+    }
+}
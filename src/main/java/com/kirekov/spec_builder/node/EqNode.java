@@ -0,0 +1,14 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+@Value
+public class EqNode<Entity> implements SpecificationNode<Entity> {
+    NodePath<Entity> path;
+    Object value;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitEq(this);
+    }
+}
@@ -0,0 +1,45 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.metamodel.Attribute;
+import java.util.List;
+
+/**
+ * Path to the field defined by its name. The name can point to the field
+ * of the associated entity, e.g. <code>roles.name</code>.
+ * The path can hold the attributes resolved from the metamodel in advance,
+ * then the attributes are not looked up by name on every query
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class FieldPath<Entity> implements NodePath<Entity> {
+    String field;
+    @EqualsAndHashCode.Exclude
+    List<Attribute<?, ?>> attributes;
+
+    public FieldPath(String field) {
+        this(field, null);
+    }
+
+    public FieldPath(String field, List<Attribute<?, ?>> attributes) {
+        this.field = field;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public <T> Expression<T> resolve(JoinCache<Entity> joins) {
+        if (attributes == null) {
+            return joins.get(field);
+        }
+        return joins.get(field, attributes);
+    }
+
+    @Override
+    public String fingerprint() {
+        return field;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kirekov.spec_builder.node;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the shape fingerprint of the tree, e.g. <code>and(eq(name),not(like(login)))</code>
+ *
+ * @param <Entity> the type of the entity
+ */
+class FingerprintVisitor<Entity> implements NodeVisitor<Entity, String> {
+    @Override
+    public String visitEq(EqNode<Entity> node) {
+        return "eq(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitIn(InNode<Entity> node) {
+        return "in(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitLike(LikeNode<Entity> node) {
+        return "like(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        return "likeIgnoreCase(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitComparison(ComparisonNode<Entity> node) {
+        return node.getOperator().name().toLowerCase(Locale.ROOT) + "(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitBetween(BetweenNode<Entity> node) {
+        return "between(" + node.getPath().fingerprint() + ")";
+    }
+
+    @Override
+    public String visitNot(NotNode<Entity> node) {
+        return "not(" + node.getNode().accept(this) + ")";
+    }
+
+    @Override
+    public String visitAnd(AndNode<Entity> node) {
+        return "and(" + join(node.getNodes()) + ")";
+    }
+
+    @Override
+    public String visitOr(OrNode<Entity> node) {
+        return "or(" + join(node.getNodes()) + ")";
+    }
+
+    @Override
+    public String visitCustom(CustomNode<Entity> node) {
+        return "custom";
+    }
+
+    @Override
+    public String visitConstant(ConstantNode<Entity> node) {
+        return String.valueOf(node.isValue());
+    }
+
+    private String join(List<SpecificationNode<Entity>> nodes) {
+        return nodes.stream()
+                .map(node -> node.accept(this))
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,28 @@
+package com.kirekov.spec_builder.node;
+
+import com.kirekov.spec_builder.from.PathFunction;
+import lombok.Value;
+
+import javax.persistence.criteria.Expression;
+
+/**
+ * Path defined by {@link PathFunction}. Functions are opaque, so two paths are equal
+ * only if they hold the same function instance
+ *
+ * @param <Entity> the type of the entity
+ */
+@Value
+public class FunctionPath<Entity> implements NodePath<Entity> {
+    PathFunction<Entity, ?> function;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Expression<T> resolve(JoinCache<Entity> joins) {
+        return (Expression<T>) function.apply(joins.getRoot());
+    }
+
+    @Override
+    public String fingerprint() {
+        return "function";
+    }
+}
@@ -0,0 +1,56 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Defines how <code>likeIgnoreCase</code> conditions are compared
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class IgnoreCaseStrategy {
+    private static final IgnoreCaseStrategy LOWER = new IgnoreCaseStrategy(Mode.LOWER, null);
+    private static final IgnoreCaseStrategy ILIKE = new IgnoreCaseStrategy(Mode.ILIKE, null);
+
+    Mode mode;
+    String shadowFieldSuffix;
+
+    /**
+     * Compares <code>lower(field)</code> with the lower-cased pattern.
+     * The condition can use the functional index on <code>lower(field)</code>
+     *
+     * @return the strategy
+     */
+    public static IgnoreCaseStrategy lower() {
+        return LOWER;
+    }
+
+    /**
+     * Compares the shadow field that stores the lower-cased value with the lower-cased pattern,
+     * e.g. <code>loginNormalized</code> for <code>login</code>. The condition can use the plain index on the shadow field.
+     * Conditions defined with {@link com.kirekov.spec_builder.from.PathFunction} fall back to {@link #lower()}
+     *
+     * @param suffix the suffix of the shadow field name
+     * @return the strategy
+     */
+    public static IgnoreCaseStrategy shadowField(String suffix) {
+        return new IgnoreCaseStrategy(Mode.SHADOW_FIELD, suffix);
+    }
+
+    /**
+     * Applies the database <code>ILIKE</code> operator. The dialect has to register the boolean function
+     * <code>ilike</code>, e.g. <code>new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(?1 ilike ?2)")</code>
+     *
+     * @return the strategy
+     */
+    public static IgnoreCaseStrategy ilike() {
+        return ILIKE;
+    }
+
+    public enum Mode {
+        LOWER,
+        SHADOW_FIELD,
+        ILIKE
+    }
+}
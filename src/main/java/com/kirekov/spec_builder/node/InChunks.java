@@ -0,0 +1,52 @@
+package com.kirekov.spec_builder.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits the values of <code>in</code> expression into bounded chunks.
+ * Each chunk is padded to the power of two size by repeating the last value,
+ * so the number of distinct queries stays small
+ */
+public final class InChunks {
+    /**
+     * Power of two that does not exceed the common database limit of 1000 elements in the list
+     */
+    public static final int MAX_CHUNK_SIZE = 512;
+
+    private InChunks() {
+    }
+
+    public static int count(int valuesCount) {
+        return (valuesCount + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+    }
+
+    public static List<List<Object>> split(List<?> values) {
+        final var chunks = new ArrayList<List<Object>>(count(values.size()));
+        for (int from = 0; from < values.size(); from += MAX_CHUNK_SIZE) {
+            chunks.add(pad(values.subList(from, Math.min(from + MAX_CHUNK_SIZE, values.size()))));
+        }
+        return chunks;
+    }
+
+    static int paddedSize(int size) {
+        if (size <= 1) {
+            return size;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static List<Object> pad(List<?> chunk) {
+        final var paddedSize = paddedSize(chunk.size());
+        if (paddedSize == chunk.size()) {
+            return Collections.unmodifiableList(chunk);
+        }
+        final var padded = new ArrayList<Object>(chunk);
+        final var last = chunk.get(chunk.size() - 1);
+        while (padded.size() < paddedSize) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
@@ -0,0 +1,32 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@Value
+public class InNode<Entity> implements SpecificationNode<Entity> {
+    NodePath<Entity> path;
+    List<Object> values;
+
+    /**
+     * Creates the node with the distinct values in the order of iteration
+     *
+     * @param path     the path
+     * @param values   the values
+     * @param <Entity> the type of the entity
+     * @return the node
+     */
+    public static <Entity> InNode<Entity> of(NodePath<Entity> path, Collection<?> values) {
+        return new InNode<>(path, Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(values))));
+    }
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitIn(this);
+    }
+}
@@ -0,0 +1,182 @@
+package com.kirekov.spec_builder.node;
+
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.CollectionAttribute;
+import javax.persistence.metamodel.ListAttribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.MapAttribute;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SetAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves dotted paths like <code>roles.name</code> against the root of the query.
+ * Every association is joined once, so all conditions on the same association share the join.
+ * Only the joins created by this cache are reused. The joins added to the root by other specifications
+ * are left alone, so their conditions are not merged with the ones of this specification
+ *
+ * @param <Entity> the type of the entity
+ */
+public class JoinCache<Entity> {
+    private final Root<Entity> root;
+    private final JoinType joinType;
+    private final Map<String, From<?, ?>> joins = new HashMap<>();
+
+    public JoinCache(Root<Entity> root, JoinType joinType) {
+        this.root = root;
+        this.joinType = joinType;
+    }
+
+    public Root<Entity> getRoot() {
+        return root;
+    }
+
+    /**
+     * Resolves the path by names. The collection at the end of the path is joined
+     * the same way as in {@link #get(String, List)}
+     *
+     * @param path the dotted path
+     * @param <T>  the type of the field
+     * @return the path
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Path<T> get(String path) {
+        final var attributes = attributesOf(root.getModel(), path);
+        if (attributes.size() == path.split("\\.").length
+                && attributes.get(attributes.size() - 1) instanceof PluralAttribute) {
+            return (Path<T>) join(path);
+        }
+        final var lastDot = path.lastIndexOf('.');
+        if (lastDot < 0) {
+            return root.get(path);
+        }
+        return join(path.substring(0, lastDot)).get(path.substring(lastDot + 1));
+    }
+
+    /**
+     * Resolves the path with the attributes taken from the metamodel in advance.
+     * No attribute is looked up by name. The collection at the end of the path is joined,
+     * so the path is the element of the collection
+     *
+     * @param path       the dotted path
+     * @param attributes the attributes of every name in the path
+     * @param <T>        the type of the field
+     * @return the path
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Path<T> get(String path, List<Attribute<?, ?>> attributes) {
+        final var last = attributes.get(attributes.size() - 1);
+        if (last instanceof PluralAttribute) {
+            return (Path<T>) join(path, attributes, attributes.size());
+        }
+        final From from = attributes.size() == 1
+                ? root
+                : join(path.substring(0, path.lastIndexOf('.')), attributes, attributes.size() - 1);
+        return from.get((SingularAttribute) last);
+    }
+
+    public From<?, ?> join(String path) {
+        final var cached = joins.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        final var lastDot = path.lastIndexOf('.');
+        final From<?, ?> parent = lastDot < 0 ? root : join(path.substring(0, lastDot));
+        final From<?, ?> join = parent.join(path.substring(lastDot + 1), joinType);
+        joins.put(path, join);
+        return join;
+    }
+
+    /**
+     * Joins the first <code>count</code> attributes. The joins are shared with {@link #join(String)}
+     */
+    private From<?, ?> join(String path, List<Attribute<?, ?>> attributes, int count) {
+        final var cached = joins.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        final var lastDot = path.lastIndexOf('.');
+        final From<?, ?> parent = count == 1 ? root : join(path.substring(0, lastDot), attributes, count - 1);
+        final var join = joinAttribute(parent, attributes.get(count - 1));
+        joins.put(path, join);
+        return join;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private From<?, ?> joinAttribute(From parent, Attribute<?, ?> attribute) {
+        if (attribute instanceof SingularAttribute) {
+            return parent.join((SingularAttribute) attribute, joinType);
+        }
+        if (attribute instanceof ListAttribute) {
+            return parent.join((ListAttribute) attribute, joinType);
+        }
+        if (attribute instanceof SetAttribute) {
+            return parent.join((SetAttribute) attribute, joinType);
+        }
+        if (attribute instanceof MapAttribute) {
+            return parent.join((MapAttribute) attribute, joinType);
+        }
+        return parent.join((CollectionAttribute) attribute, joinType);
+    }
+
+    /**
+     * Checks whether the path goes through collection attribute or ends with it,
+     * e.g. <code>roles.name</code> or <code>roles</code> of <code>User</code>
+     *
+     * @param path the path
+     * @return true if any attribute in the path is a collection
+     */
+    public boolean crossesPluralAttribute(FieldPath<Entity> path) {
+        return crossesPluralAttribute(root.getModel(), path);
+    }
+
+    /**
+     * The attributes resolved in advance are used if the path holds them
+     *
+     * @param model the type the path starts from
+     * @param path  the path
+     * @return true if any attribute in the path is a collection
+     * @see #crossesPluralAttribute(FieldPath)
+     */
+    public static boolean crossesPluralAttribute(ManagedType<?> model, FieldPath<?> path) {
+        final var attributes = path.getAttributes() == null
+                ? attributesOf(model, path.getField())
+                : path.getAttributes();
+        for (final var attribute : attributes) {
+            if (attribute instanceof PluralAttribute) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the attributes of the dotted path by names.
+     * The lookup stops at the attribute which type has no attributes
+     */
+    private static List<Attribute<?, ?>> attributesOf(ManagedType<?> model, String path) {
+        final var names = path.split("\\.");
+        final var attributes = new ArrayList<Attribute<?, ?>>(names.length);
+        ManagedType<?> type = model;
+        for (final var name : names) {
+            final var attribute = type.getAttribute(name);
+            attributes.add(attribute);
+            final var attributeType = attribute instanceof PluralAttribute
+                    ? ((PluralAttribute<?, ?, ?>) attribute).getElementType()
+                    : ((SingularAttribute<?, ?>) attribute).getType();
+            if (!(attributeType instanceof ManagedType)) {
+                break;
+            }
+            type = (ManagedType<?>) attributeType;
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,107 @@
+package com.kirekov.spec_builder.node;
+
+import javax.persistence.metamodel.ManagedType;
+import java.util.List;
+
+/**
+ * Checks without lowering whether the tree applied to the root may add joins to it.
+ * The predicate of the tree that joins nothing matches every root at most once
+ * and does not filter out the roots for other predicates of the same query.
+ * Custom specifications and path functions are opaque and can join anything, so they are assumed to join
+ *
+ * @param <Entity> the type of the entity
+ */
+public class JoiningVisitor<Entity> implements NodeVisitor<Entity, Boolean> {
+    private final ManagedType<Entity> model;
+    private final PredicateOptions options;
+
+    public JoiningVisitor(ManagedType<Entity> model, PredicateOptions options) {
+        this.model = model;
+        this.options = options;
+    }
+
+    @Override
+    public Boolean visitEq(EqNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitIn(InNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitLike(LikeNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitComparison(ComparisonNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitBetween(BetweenNode<Entity> node) {
+        return joins(node.getPath());
+    }
+
+    @Override
+    public Boolean visitNot(NotNode<Entity> node) {
+        return node.getNode().accept(this);
+    }
+
+    @Override
+    public Boolean visitAnd(AndNode<Entity> node) {
+        return anyJoins(node.getNodes());
+    }
+
+    @Override
+    public Boolean visitOr(OrNode<Entity> node) {
+        return anyJoins(node.getNodes());
+    }
+
+    @Override
+    public Boolean visitCustom(CustomNode<Entity> node) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitConstant(ConstantNode<Entity> node) {
+        return false;
+    }
+
+    /**
+     * {@link AssociationMode#JOIN} joins every dotted path and every collection to the root,
+     * {@link AssociationMode#AUTO} joins only the dotted paths that do not cross or end with collections,
+     * and {@link AssociationMode#EXISTS} joins nothing
+     */
+    private boolean joins(NodePath<Entity> path) {
+        if (!(path instanceof FieldPath)) {
+            return true;
+        }
+        final var fieldPath = (FieldPath<Entity>) path;
+        final var dotted = fieldPath.getField().indexOf('.') >= 0;
+        switch (options.getAssociationMode()) {
+            case JOIN:
+                return dotted || JoinCache.crossesPluralAttribute(model, fieldPath);
+            case AUTO:
+                return dotted && !JoinCache.crossesPluralAttribute(model, fieldPath);
+            default:
+                return false;
+        }
+    }
+
+    private boolean anyJoins(List<SpecificationNode<Entity>> nodes) {
+        for (final var node : nodes) {
+            if (node.accept(this)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+@Value
+public class LikeNode<Entity> implements SpecificationNode<Entity> {
+    NodePath<Entity> path;
+    String pattern;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitLike(this);
+    }
+}
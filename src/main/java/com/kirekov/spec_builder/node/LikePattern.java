@@ -0,0 +1,135 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of the analysis of <code>like</code> pattern. Backslash escapes the next character,
+ * and the pattern that ends with the single backslash is rejected.
+ * <ul>
+ *     <li>{@link Kind#EXACT} pattern has no wildcards and is compared with <code>=</code></li>
+ *     <li>{@link Kind#PREFIX} pattern like <code>abc%</code> is compared with the range
+ *     <code>&gt;= 'abc' AND &lt; 'abd'</code> that can use the index, and with the original <code>like</code>.
+ *     The range follows the code points, so it may exclude matching rows under linguistic collations.
+ *     That is why the range is used only if {@link PredicateOptions#isBinaryCollation()} is set</li>
+ *     <li>{@link Kind#GENERAL} pattern is compared with <code>like</code></li>
+ * </ul>
+ * The values are listed in the order they are used in the predicate:
+ * the literal for exact pattern, the lower bound, the upper bound and the pattern for prefix one,
+ * and the pattern itself for the general one
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class LikePattern {
+    public static final char ESCAPE = '\\';
+
+    Kind kind;
+    List<String> values;
+
+    /**
+     * Analyses the pattern of <code>like</code>
+     *
+     * @param pattern the pattern
+     * @param options the options, prefix patterns are recognized only for binary collation
+     * @return the analysed pattern
+     * @throws IllegalArgumentException if the pattern ends with the single escape character
+     */
+    public static LikePattern of(String pattern, PredicateOptions options) {
+        if (pattern == null) {
+            return general(null);
+        }
+        final var literal = new StringBuilder(pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            final var c = pattern.charAt(i);
+            if (c == ESCAPE) {
+                if (i == pattern.length() - 1) {
+                    throw danglingEscape(pattern);
+                }
+                literal.append(pattern.charAt(++i));
+            } else if (c == '%' && i == pattern.length() - 1 && literal.length() > 0 && options.isBinaryCollation()) {
+                return prefix(literal.toString(), pattern);
+            } else if (c == '%' || c == '_') {
+                return general(pattern);
+            } else {
+                literal.append(c);
+            }
+        }
+        return new LikePattern(Kind.EXACT, List.of(literal.toString()));
+    }
+
+    /**
+     * Analyses the pattern of <code>likeIgnoreCase</code>. The pattern is lower-cased
+     * with {@link Locale#ROOT}, so the result does not depend on the default locale
+     *
+     * @param pattern the pattern
+     * @param options the options that define the ignore case strategy and the collation
+     * @return the analysed pattern
+     * @throws IllegalArgumentException if the pattern ends with the single escape character
+     */
+    public static LikePattern ofIgnoreCase(String pattern, PredicateOptions options) {
+        final var lowerCased = pattern == null ? null : pattern.toLowerCase(Locale.ROOT);
+        if (options.getIgnoreCaseStrategy().getMode() == IgnoreCaseStrategy.Mode.ILIKE) {
+            checkEscapes(lowerCased);
+            return general(lowerCased);
+        }
+        return of(lowerCased, options);
+    }
+
+    /**
+     * Checks that every escape character of the pattern is followed by the escaped one
+     *
+     * @param pattern the pattern
+     * @throws IllegalArgumentException if the pattern ends with the single escape character
+     */
+    public static void checkEscapes(String pattern) {
+        if (pattern == null) {
+            return;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == ESCAPE) {
+                if (i == pattern.length() - 1) {
+                    throw danglingEscape(pattern);
+                }
+                i++;
+            }
+        }
+    }
+
+    static String successor(String prefix) {
+        final var last = prefix.charAt(prefix.length() - 1);
+        final var next = (char) (last + 1);
+        if (last == Character.MAX_VALUE || Character.isSurrogate(last) || Character.isSurrogate(next)) {
+            return null;
+        }
+        return prefix.substring(0, prefix.length() - 1) + next;
+    }
+
+    private static LikePattern prefix(String prefix, String pattern) {
+        final var successor = successor(prefix);
+        if (successor == null) {
+            return general(pattern);
+        }
+        return new LikePattern(Kind.PREFIX, List.of(prefix, successor, pattern));
+    }
+
+    private static IllegalArgumentException danglingEscape(String pattern) {
+        return new IllegalArgumentException(
+                "Pattern '" + pattern + "' ends with the escape character " + ESCAPE + " that escapes nothing"
+        );
+    }
+
+    private static LikePattern general(String pattern) {
+        return new LikePattern(Kind.GENERAL, Collections.singletonList(pattern));
+    }
+
+    public enum Kind {
+        EXACT,
+        PREFIX,
+        GENERAL
+    }
+}
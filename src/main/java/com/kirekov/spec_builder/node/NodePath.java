@@ -0,0 +1,14 @@
+package com.kirekov.spec_builder.node;
+
+import javax.persistence.criteria.Expression;
+
+/**
+ * Points to the field that the condition is applied to
+ *
+ * @param <Entity> the type of the entity
+ */
+public interface NodePath<Entity> {
+    <T> Expression<T> resolve(JoinCache<Entity> joins);
+
+    String fingerprint();
+}
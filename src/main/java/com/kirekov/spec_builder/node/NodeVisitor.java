@@ -0,0 +1,31 @@
+package com.kirekov.spec_builder.node;
+
+/**
+ * Visits the nodes of the specification tree
+ *
+ * @param <Entity> the type of the entity
+ * @param <R>      the type of the result
+ */
+public interface NodeVisitor<Entity, R> {
+    R visitEq(EqNode<Entity> node);
+
+    R visitIn(InNode<Entity> node);
+
+    R visitLike(LikeNode<Entity> node);
+
+    R visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node);
+
+    R visitComparison(ComparisonNode<Entity> node);
+
+    R visitBetween(BetweenNode<Entity> node);
+
+    R visitNot(NotNode<Entity> node);
+
+    R visitAnd(AndNode<Entity> node);
+
+    R visitOr(OrNode<Entity> node);
+
+    R visitCustom(CustomNode<Entity> node);
+
+    R visitConstant(ConstantNode<Entity> node);
+}
@@ -0,0 +1,13 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+@Value
+public class NotNode<Entity> implements SpecificationNode<Entity> {
+    SpecificationNode<Entity> node;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitNot(this);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class OrNode<Entity> implements SpecificationNode<Entity> {
+    List<SpecificationNode<Entity>> nodes;
+
+    @Override
+    public <R> R accept(NodeVisitor<Entity, R> visitor) {
+        return visitor.visitOr(this);
+    }
+}
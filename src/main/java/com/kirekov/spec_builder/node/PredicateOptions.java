@@ -0,0 +1,25 @@
+package com.kirekov.spec_builder.node;
+
+import lombok.Value;
+import lombok.With;
+
+import javax.persistence.criteria.JoinType;
+
+/**
+ * Options that define how the specification tree is lowered to JPA predicates
+ */
+@Value
+@With
+public class PredicateOptions {
+    public static final PredicateOptions DEFAULT =
+            new PredicateOptions(JoinType.INNER, AssociationMode.JOIN, IgnoreCaseStrategy.lower(), false);
+
+    JoinType joinType;
+    AssociationMode associationMode;
+    IgnoreCaseStrategy ignoreCaseStrategy;
+    /**
+     * The compared columns use binary collation, so prefix patterns of <code>like</code>
+     * can be guarded with the range of code points
+     */
+    boolean binaryCollation;
+}
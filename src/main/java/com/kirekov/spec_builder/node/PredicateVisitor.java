@@ -0,0 +1,275 @@
+package com.kirekov.spec_builder.node;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lowers the specification tree to JPA {@link Predicate}.
+ * Returns <code>null</code> if the tree does not restrict the query
+ *
+ * @param <Entity> the type of the entity
+ */
+public class PredicateVisitor<Entity> implements NodeVisitor<Entity, Predicate> {
+    protected final Root<Entity> root;
+    protected final CriteriaQuery<?> query;
+    protected final CriteriaBuilder criteriaBuilder;
+    protected final JoinCache<Entity> joins;
+    protected final PredicateOptions options;
+
+    public PredicateVisitor(Root<Entity> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        this(root, query, criteriaBuilder, PredicateOptions.DEFAULT);
+    }
+
+    public PredicateVisitor(
+            Root<Entity> root,
+            CriteriaQuery<?> query,
+            CriteriaBuilder criteriaBuilder,
+            PredicateOptions options
+    ) {
+        this.root = root;
+        this.query = query;
+        this.criteriaBuilder = criteriaBuilder;
+        this.joins = new JoinCache<>(root, options.getJoinType());
+        this.options = options;
+    }
+
+    /**
+     * Returns the joins created while lowering, so the same joins can be used for selections and ordering
+     *
+     * @return the join cache
+     */
+    public JoinCache<Entity> getJoins() {
+        return joins;
+    }
+
+    @Override
+    public Predicate visitEq(EqNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : eq(node);
+    }
+
+    @Override
+    public Predicate visitIn(InNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : in(node);
+    }
+
+    @Override
+    public Predicate visitLike(LikeNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : like(node);
+    }
+
+    @Override
+    public Predicate visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : likeIgnoreCase(node);
+    }
+
+    @Override
+    public Predicate visitComparison(ComparisonNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : compare(node);
+    }
+
+    @Override
+    public Predicate visitBetween(BetweenNode<Entity> node) {
+        return requiresSubquery(node.getPath()) ? exists(node) : between(node);
+    }
+
+    @Override
+    public Predicate visitNot(NotNode<Entity> node) {
+        final var predicate = node.getNode().accept(this);
+        return predicate == null ? null : predicate.not();
+    }
+
+    @Override
+    public Predicate visitAnd(AndNode<Entity> node) {
+        final var predicates = collect(node.getNodes());
+        if (predicates.length == 0) {
+            return null;
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.and(predicates);
+    }
+
+    @Override
+    public Predicate visitOr(OrNode<Entity> node) {
+        final var predicates = collect(node.getNodes());
+        if (predicates.length == 0) {
+            return null;
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
+
+    @Override
+    public Predicate visitCustom(CustomNode<Entity> node) {
+        return node.getSpecification().toPredicate(root, query, criteriaBuilder);
+    }
+
+    @Override
+    public Predicate visitConstant(ConstantNode<Entity> node) {
+        return node.isValue() ? criteriaBuilder.conjunction() : criteriaBuilder.disjunction();
+    }
+
+    protected Predicate eq(EqNode<Entity> node) {
+        return criteriaBuilder.equal(node.getPath().resolve(joins), node.getValue());
+    }
+
+    /**
+     * Splits the values into chunks combined with <code>OR</code>.
+     * The empty collection matches nothing
+     */
+    protected Predicate in(InNode<Entity> node) {
+        if (node.getValues().isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        final var path = node.getPath().resolve(joins);
+        final var chunks = InChunks.split(node.getValues());
+        final var predicates = new Predicate[chunks.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = path.in(chunks.get(i));
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Predicate compare(ComparisonNode<Entity> node) {
+        final Expression path = node.getPath().resolve(joins);
+        final Expression value = comparable(path, node.getValue());
+        switch (node.getOperator()) {
+            case GT:
+                return criteriaBuilder.greaterThan(path, value);
+            case GE:
+                return criteriaBuilder.greaterThanOrEqualTo(path, value);
+            case LT:
+                return criteriaBuilder.lessThan(path, value);
+            case LE:
+                return criteriaBuilder.lessThanOrEqualTo(path, value);
+            default:
+                throw new IllegalStateException("Unsupported operator " + node.getOperator());
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Predicate between(BetweenNode<Entity> node) {
+        final Expression path = node.getPath().resolve(joins);
+        final Expression lower = comparable(path, node.getLower());
+        final Expression upper = comparable(path, node.getUpper());
+        return criteriaBuilder.between(path, lower, upper);
+    }
+
+    /**
+     * Creates the expression of the value used in comparisons
+     *
+     * @param path  the compared path
+     * @param value the value
+     * @return the expression
+     */
+    protected Expression<?> comparable(Expression<?> path, Object value) {
+        return criteriaBuilder.literal(value);
+    }
+
+    protected Predicate like(LikeNode<Entity> node) {
+        return like(node.getPath().resolve(joins), LikePattern.of(node.getPattern(), options));
+    }
+
+    protected Predicate likeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        final var strategy = options.getIgnoreCaseStrategy();
+        final var pattern = LikePattern.ofIgnoreCase(node.getPattern(), options);
+        final var path = node.getPath();
+        if (strategy.getMode() == IgnoreCaseStrategy.Mode.ILIKE) {
+            return criteriaBuilder.isTrue(criteriaBuilder.function(
+                    "ilike",
+                    Boolean.class,
+                    path.resolve(joins),
+                    value(pattern.getValues().get(0))
+            ));
+        }
+        if (strategy.getMode() == IgnoreCaseStrategy.Mode.SHADOW_FIELD && path instanceof FieldPath) {
+            final var field = ((FieldPath<Entity>) path).getField();
+            return like(joins.get(field + strategy.getShadowFieldSuffix()), pattern);
+        }
+        return like(criteriaBuilder.lower(path.resolve(joins)), pattern);
+    }
+
+    /**
+     * Creates the expression of the string value used in <code>like</code> conditions
+     *
+     * @param value the value
+     * @return the expression
+     */
+    protected Expression<String> value(String value) {
+        return value == null ? criteriaBuilder.nullLiteral(String.class) : criteriaBuilder.literal(value);
+    }
+
+    /**
+     * Lowers the analysed pattern. Patterns without wildcards become <code>=</code>,
+     * prefix patterns recognized for binary collation are guarded with the index-friendly range
+     */
+    private Predicate like(Expression<String> path, LikePattern pattern) {
+        final var values = pattern.getValues();
+        switch (pattern.getKind()) {
+            case EXACT:
+                return criteriaBuilder.equal(path, value(values.get(0)));
+            case PREFIX:
+                return criteriaBuilder.and(
+                        criteriaBuilder.greaterThanOrEqualTo(path, value(values.get(0))),
+                        criteriaBuilder.lessThan(path, value(values.get(1))),
+                        criteriaBuilder.like(path, value(values.get(2)), LikePattern.ESCAPE)
+                );
+            default:
+                return criteriaBuilder.like(path, value(values.get(0)), LikePattern.ESCAPE);
+        }
+    }
+
+    /**
+     * Creates the visitor that lowers the condition inside <code>EXISTS</code> subquery.
+     * The associations of the subquery root are always joined
+     *
+     * @param subqueryRoot the root of the subquery
+     * @return the visitor
+     */
+    protected PredicateVisitor<Entity> subqueryVisitor(Root<Entity> subqueryRoot) {
+        return new PredicateVisitor<>(subqueryRoot, query, criteriaBuilder, subqueryOptions());
+    }
+
+    protected PredicateOptions subqueryOptions() {
+        return options.withJoinType(JoinType.INNER).withAssociationMode(AssociationMode.JOIN);
+    }
+
+    private boolean requiresSubquery(NodePath<Entity> path) {
+        final var associationMode = options.getAssociationMode();
+        if (associationMode == AssociationMode.JOIN || !(path instanceof FieldPath)) {
+            return false;
+        }
+        final var fieldPath = (FieldPath<Entity>) path;
+        if (associationMode == AssociationMode.EXISTS && fieldPath.getField().indexOf('.') >= 0) {
+            return true;
+        }
+        return joins.crossesPluralAttribute(fieldPath);
+    }
+
+    /**
+     * Applies the condition as <code>EXISTS (select e from Entity e join ... where e = root and condition)</code>
+     */
+    private Predicate exists(SpecificationNode<Entity> node) {
+        final var model = root.getModel();
+        final var subquery = query.subquery(model.getJavaType());
+        final var subqueryRoot = subquery.from(model);
+        final var predicate = node.accept(subqueryVisitor(subqueryRoot));
+        subquery.select(subqueryRoot).where(criteriaBuilder.equal(subqueryRoot, root), predicate);
+        return criteriaBuilder.exists(subquery);
+    }
+
+    private Predicate[] collect(List<SpecificationNode<Entity>> nodes) {
+        final var predicates = new ArrayList<Predicate>(nodes.size());
+        for (final var node : nodes) {
+            final var predicate = node.accept(this);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
@@ -0,0 +1,21 @@
+package com.kirekov.spec_builder.node;
+
+/**
+ * Immutable node of the specification tree. Nodes are compared structurally,
+ * so two equal filters produce equal trees
+ *
+ * @param <Entity> the type of the entity
+ */
+public interface SpecificationNode<Entity> {
+    <R> R accept(NodeVisitor<Entity, R> visitor);
+
+    /**
+     * Returns the shape of the tree. It contains operators and field names but never bound values,
+     * so the filters that differ only by values have the same fingerprint
+     *
+     * @return the shape fingerprint
+     */
+    default String fingerprint() {
+        return accept(new FingerprintVisitor<>());
+    }
+}
@@ -0,0 +1,344 @@
+package com.kirekov.spec_builder.optimizer;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.NodeVisitor;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import javax.persistence.metamodel.Bindable;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Rewrites the tree for {@link SpecificationOptimizer}. The negated visitor lowers the negation of the node,
+ * so <code>NOT</code> nodes remain only above the conditions.
+ * Returns <code>null</code> for the empty <code>AND</code>/<code>OR</code> nodes that do not restrict the query
+ *
+ * @param <Entity> the type of the entity
+ */
+class SimplifyingVisitor<Entity> implements NodeVisitor<Entity, SpecificationNode<Entity>> {
+    private final boolean negated;
+    private SimplifyingVisitor<Entity> negation;
+
+    SimplifyingVisitor() {
+        this(false);
+    }
+
+    private SimplifyingVisitor(boolean negated) {
+        this.negated = negated;
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitEq(EqNode<Entity> node) {
+        return condition(node);
+    }
+
+    /**
+     * The empty collection matches nothing
+     */
+    @Override
+    public SpecificationNode<Entity> visitIn(InNode<Entity> node) {
+        return node.getValues().isEmpty() ? constant(false) : condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitLike(LikeNode<Entity> node) {
+        return condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        return condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitComparison(ComparisonNode<Entity> node) {
+        return condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitBetween(BetweenNode<Entity> node) {
+        return condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitNot(NotNode<Entity> node) {
+        return node.getNode().accept(negation());
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitAnd(AndNode<Entity> node) {
+        return negated ? disjunction(node.getNodes()) : conjunction(node.getNodes());
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitOr(OrNode<Entity> node) {
+        return negated ? conjunction(node.getNodes()) : disjunction(node.getNodes());
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitCustom(CustomNode<Entity> node) {
+        return condition(node);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitConstant(ConstantNode<Entity> node) {
+        return constant(node.isValue());
+    }
+
+    private SimplifyingVisitor<Entity> negation() {
+        if (negation == null) {
+            negation = new SimplifyingVisitor<>(!negated);
+            negation.negation = this;
+        }
+        return negation;
+    }
+
+    private SpecificationNode<Entity> condition(SpecificationNode<Entity> node) {
+        return negated ? new NotNode<>(node) : node;
+    }
+
+    private SpecificationNode<Entity> constant(boolean value) {
+        return new ConstantNode<>(value != negated);
+    }
+
+    private SpecificationNode<Entity> conjunction(List<SpecificationNode<Entity>> nodes) {
+        final var operands = new LinkedHashSet<SpecificationNode<Entity>>();
+        var folded = false;
+        for (final var node : nodes) {
+            final var operand = node.accept(this);
+            if (operand instanceof ConstantNode) {
+                if (!((ConstantNode<Entity>) operand).isValue()) {
+                    return operand;
+                }
+                folded = true;
+            } else if (operand instanceof AndNode) {
+                operands.addAll(((AndNode<Entity>) operand).getNodes());
+            } else if (operand != null) {
+                operands.add(operand);
+            }
+        }
+        final var merged = intersect(operands);
+        if (merged == null) {
+            return new ConstantNode<>(false);
+        }
+        if (merged.isEmpty()) {
+            return folded ? new ConstantNode<>(true) : null;
+        }
+        return merged.size() == 1 ? merged.get(0) : new AndNode<>(merged);
+    }
+
+    private SpecificationNode<Entity> disjunction(List<SpecificationNode<Entity>> nodes) {
+        final var operands = new LinkedHashSet<SpecificationNode<Entity>>();
+        var folded = false;
+        for (final var node : nodes) {
+            final var operand = node.accept(this);
+            if (operand instanceof ConstantNode) {
+                if (((ConstantNode<Entity>) operand).isValue()) {
+                    return operand;
+                }
+                folded = true;
+            } else if (operand instanceof OrNode) {
+                operands.addAll(((OrNode<Entity>) operand).getNodes());
+            } else if (operand != null) {
+                operands.add(operand);
+            }
+        }
+        final var merged = unite(operands);
+        if (merged.isEmpty()) {
+            return folded ? new ConstantNode<>(false) : null;
+        }
+        return merged.size() == 1 ? merged.get(0) : new OrNode<>(merged);
+    }
+
+    /**
+     * Merges <code>a = 1 OR a IN (2, 3)</code> into <code>a IN (1, 2, 3)</code>.
+     * The merged node takes the place of the first one.
+     * Only the values of the same type are merged, and if the type of the field is resolved from the metamodel,
+     * the values have to be of that type, so single <code>IN</code> is never bound with mixed types
+     */
+    private List<SpecificationNode<Entity>> unite(Collection<SpecificationNode<Entity>> operands) {
+        final var result = new ArrayList<SpecificationNode<Entity>>(operands.size());
+        final var groups = new LinkedHashMap<FieldPath<Entity>, ValueGroup>();
+        for (final var operand : operands) {
+            final var path = comparedPath(operand);
+            final var type = path == null ? null : sameType(path, valuesOf(operand));
+            final var group = type == null ? null : groups.get(path);
+            if (type == null || group != null && group.type != type) {
+                result.add(operand);
+            } else if (group == null) {
+                groups.put(path, new ValueGroup(result.size(), type, valuesOf(operand)));
+                result.add(operand);
+            } else {
+                group.values.addAll(valuesOf(operand));
+            }
+        }
+        groups.forEach((path, group) -> result.set(group.index, toNode(path, group.values)));
+        return result;
+    }
+
+    /**
+     * Intersects the values of <code>a = 1 AND a IN (1, 2)</code> and removes the values
+     * of negated conditions like <code>NOT a IN (2, 3)</code>.
+     * Negated conditions on the same field are merged into single <code>NOT IN</code>
+     * if their values are of the same type, as in {@link #unite(Collection)}.
+     * Values of dotted paths are not intersected, because with <code>EXISTS</code> subqueries
+     * each condition can be matched by different associated entity
+     *
+     * @return <code>null</code> if the operands contradict each other
+     */
+    private List<SpecificationNode<Entity>> intersect(Collection<SpecificationNode<Entity>> operands) {
+        final var result = new ArrayList<SpecificationNode<Entity>>(operands.size());
+        final var included = new LinkedHashMap<FieldPath<Entity>, ValueGroup>();
+        final var excluded = new LinkedHashMap<FieldPath<Entity>, ValueGroup>();
+        for (final var operand : operands) {
+            if (operand instanceof NotNode && comparedPath(((NotNode<Entity>) operand).getNode()) != null) {
+                final var condition = ((NotNode<Entity>) operand).getNode();
+                final var path = comparedPath(condition);
+                final var type = sameType(path, valuesOf(condition));
+                final var group = type == null ? null : excluded.get(path);
+                if (type == null || group != null && group.type != type) {
+                    result.add(operand);
+                } else if (group == null) {
+                    excluded.put(path, new ValueGroup(result.size(), type, valuesOf(condition)));
+                    result.add(operand);
+                } else {
+                    group.values.addAll(valuesOf(condition));
+                }
+                continue;
+            }
+            final var path = comparedPath(operand);
+            final var type = path == null || path.getField().indexOf('.') >= 0 ? null : exactType(valuesOf(operand));
+            final var group = type == null ? null : included.get(path);
+            if (type == null || group != null && group.type != type) {
+                result.add(operand);
+            } else if (group == null) {
+                included.put(path, new ValueGroup(result.size(), type, valuesOf(operand)));
+                result.add(operand);
+            } else {
+                group.values.retainAll(valuesOf(operand));
+            }
+        }
+        for (final var entry : included.entrySet()) {
+            final var group = entry.getValue();
+            final var exclusion = excluded.get(entry.getKey());
+            if (exclusion != null && exclusion.type == group.type) {
+                group.values.removeAll(exclusion.values);
+                excluded.remove(entry.getKey());
+                result.set(exclusion.index, null);
+            }
+            if (group.values.isEmpty()) {
+                return null;
+            }
+            result.set(group.index, toNode(entry.getKey(), group.values));
+        }
+        excluded.forEach((path, group) -> result.set(group.index, new NotNode<>(toNode(path, group.values))));
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * Returns the path of the equality that can be merged with others
+     */
+    private static <Entity> FieldPath<Entity> comparedPath(SpecificationNode<Entity> node) {
+        if (node instanceof EqNode) {
+            final var eq = (EqNode<Entity>) node;
+            if (eq.getPath() instanceof FieldPath && eq.getValue() != null) {
+                return (FieldPath<Entity>) eq.getPath();
+            }
+        }
+        if (node instanceof InNode) {
+            final var in = (InNode<Entity>) node;
+            if (in.getPath() instanceof FieldPath && !in.getValues().isEmpty() && !in.getValues().contains(null)) {
+                return (FieldPath<Entity>) in.getPath();
+            }
+        }
+        return null;
+    }
+
+    private static List<?> valuesOf(SpecificationNode<?> node) {
+        if (node instanceof EqNode) {
+            return Collections.singletonList(((EqNode<?>) node).getValue());
+        }
+        return ((InNode<?>) node).getValues();
+    }
+
+    /**
+     * Returns the class of the values if all of them have the same class that matches the type of the field.
+     * The type of the field is known only if the path holds the attributes resolved from the metamodel
+     */
+    private static Class<?> sameType(FieldPath<?> path, List<?> values) {
+        final var type = values.get(0).getClass();
+        for (final var value : values) {
+            if (value.getClass() != type) {
+                return null;
+            }
+        }
+        final var attributes = path.getAttributes();
+        if (attributes == null) {
+            return type;
+        }
+        final var fieldType = ((Bindable<?>) attributes.get(attributes.size() - 1)).getBindableJavaType();
+        return MethodType.methodType(fieldType).wrap().returnType().isAssignableFrom(type) ? type : null;
+    }
+
+    /**
+     * Returns the type of the values if all of them have the same type
+     * and their equality in Java matches the equality in the database
+     */
+    private static Class<?> exactType(List<?> values) {
+        final var type = values.get(0).getClass();
+        for (final var value : values) {
+            if (value.getClass() != type) {
+                return null;
+            }
+        }
+        final var exact = Integer.class.equals(type)
+                || Long.class.equals(type)
+                || Short.class.equals(type)
+                || Byte.class.equals(type)
+                || BigInteger.class.equals(type)
+                || Boolean.class.equals(type)
+                || UUID.class.equals(type)
+                || type.isEnum();
+        return exact ? type : null;
+    }
+
+    private static <Entity> SpecificationNode<Entity> toNode(FieldPath<Entity> path, Set<Object> values) {
+        if (values.size() == 1) {
+            return new EqNode<>(path, values.iterator().next());
+        }
+        return InNode.of(path, values);
+    }
+
+    private static class ValueGroup {
+        private final int index;
+        private Class<?> type;
+        private final Set<Object> values = new LinkedHashSet<>();
+
+        private ValueGroup(int index, Class<?> type, Collection<?> values) {
+            this.index = index;
+            this.type = type;
+            this.values.addAll(values);
+        }
+    }
+}
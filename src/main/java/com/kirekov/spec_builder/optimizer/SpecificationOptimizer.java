@@ -0,0 +1,54 @@
+package com.kirekov.spec_builder.optimizer;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.SpecificationNode;
+
+import java.util.List;
+
+/**
+ * Simplifies the specification tree before it is lowered to JPA predicates.
+ * <ul>
+ *     <li>nested <code>AND</code>/<code>OR</code> nodes are flattened and duplicate operands are removed</li>
+ *     <li><code>NOT</code> is pushed down to the conditions with De Morgan's laws,
+ *     so double negations disappear</li>
+ *     <li>equalities on the same field combined with <code>OR</code> are merged into <code>IN</code>,
+ *     negated equalities combined with <code>AND</code> are merged into <code>NOT IN</code></li>
+ *     <li>equalities on the same field combined with <code>AND</code> are intersected,
+ *     so <code>a = 1 AND a = 2</code> becomes always false</li>
+ *     <li>always true and always false operands are folded into {@link com.kirekov.spec_builder.node.ConstantNode}</li>
+ * </ul>
+ * The rewritten tree selects the same rows, including the rows with <code>NULL</code> values.
+ * Empty <code>AND</code>/<code>OR</code> nodes are absent conditions rather than <code>TRUE</code>/<code>FALSE</code>,
+ * the same as in {@link com.kirekov.spec_builder.node.PredicateVisitor}, so their negations are absent too.
+ * Intersection is applied only to the values whose equality does not depend on the database collation
+ * or precision, e.g. integers, booleans, enums and UUIDs
+ */
+public final class SpecificationOptimizer {
+    private SpecificationOptimizer() {
+    }
+
+    /**
+     * Optimizes the tree. Always false tree becomes single constant node
+     *
+     * @param node     the root of the tree
+     * @param <Entity> the type of the entity
+     * @return the optimized tree
+     */
+    public static <Entity> SpecificationNode<Entity> optimize(SpecificationNode<Entity> node) {
+        final var optimized = node.accept(new SimplifyingVisitor<Entity>());
+        return optimized == null ? new AndNode<>(List.of()) : optimized;
+    }
+
+    /**
+     * Checks whether the tree provably matches nothing,
+     * e.g. it contains empty <code>IN</code> or contradicting equalities combined with <code>AND</code>
+     *
+     * @param node     the root of the tree
+     * @param <Entity> the type of the entity
+     * @return <code>true</code> if no row can match the tree
+     */
+    public static <Entity> boolean matchesNothing(SpecificationNode<Entity> node) {
+        return new ConstantNode<Entity>(false).equals(optimize(node));
+    }
+}
@@ -9,5 +9,6 @@ package com.kirekov.spec_builder.provider;
 public interface CombinedSpecificationProvider<Entity, Provider extends CombinedSpecificationProvider<Entity, Provider>> extends
         CustomSpecificationProvider<Entity, Provider>,
         EqSpecificationProvider<Entity, Provider>,
+        ComparisonSpecificationProvider<Entity, Provider>,
         LikeSpecificationProvider<Entity, Provider> {
 }
@@ -0,0 +1,56 @@
+package com.kirekov.spec_builder.provider;
+
+import com.kirekov.spec_builder.from.PathFunction;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.metamodel.Attribute;
+
+/**
+ * Provides fluent API to build queries with comparisons of {@link Comparable} values.
+ * Typed overloads check at compile time that the value matches the type of the field
+ *
+ * @param <Entity>   the type of the entity
+ * @param <Provider> the type of the specification provider
+ * @see CriteriaBuilder#greaterThan(Expression, Comparable)
+ * @see CriteriaBuilder#between(Expression, Comparable, Comparable)
+ */
+public interface ComparisonSpecificationProvider<Entity, Provider extends ComparisonSpecificationProvider<Entity, Provider>> {
+    Provider gt(String field, Comparable<?> value);
+
+    <T extends Comparable<? super T>> Provider gt(Attribute<Entity, T> field, T value);
+
+    <T extends Comparable<? super T>> Provider gt(PathFunction<Entity, T> pathFunction, T value);
+
+    Provider ge(String field, Comparable<?> value);
+
+    <T extends Comparable<? super T>> Provider ge(Attribute<Entity, T> field, T value);
+
+    <T extends Comparable<? super T>> Provider ge(PathFunction<Entity, T> pathFunction, T value);
+
+    Provider lt(String field, Comparable<?> value);
+
+    <T extends Comparable<? super T>> Provider lt(Attribute<Entity, T> field, T value);
+
+    <T extends Comparable<? super T>> Provider lt(PathFunction<Entity, T> pathFunction, T value);
+
+    Provider le(String field, Comparable<?> value);
+
+    <T extends Comparable<? super T>> Provider le(Attribute<Entity, T> field, T value);
+
+    <T extends Comparable<? super T>> Provider le(PathFunction<Entity, T> pathFunction, T value);
+
+    /**
+     * Checks that the field is within the range, both bounds are inclusive
+     *
+     * @param field the field
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @return the provider
+     */
+    Provider between(String field, Comparable<?> lower, Comparable<?> upper);
+
+    <T extends Comparable<? super T>> Provider between(Attribute<Entity, T> field, T lower, T upper);
+
+    <T extends Comparable<? super T>> Provider between(PathFunction<Entity, T> pathFunction, T lower, T upper);
+}
@@ -5,18 +5,26 @@ import com.kirekov.spec_builder.from.PathFunction;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Expression;
 import javax.persistence.metamodel.Attribute;
+import java.util.Collection;
 
 /**
- * Provides fluent API to build queries with <code>eq</code> expressions
+ * Provides fluent API to build queries with <code>eq</code> and <code>in</code> expressions
  *
  * @param <Entity>   the type of the entity
  * @param <Provider> the type of the specification provider
  * @see CriteriaBuilder#equal(Expression, Object)
+ * @see Expression#in(Collection)
  */
 public interface EqSpecificationProvider<Entity, Provider extends EqSpecificationProvider<Entity, Provider>> {
     Provider eq(String field, Object value);
 
     Provider eq(Attribute<Entity, ?> field, Object value);
 
-    Provider eq(PathFunction<Entity> pathFunction, Object value);
+    <T> Provider eq(PathFunction<Entity, T> pathFunction, Object value);
+
+    Provider in(String field, Collection<?> values);
+
+    Provider in(Attribute<Entity, ?> field, Collection<?> values);
+
+    <T> Provider in(PathFunction<Entity, T> pathFunction, Collection<?> values);
 }
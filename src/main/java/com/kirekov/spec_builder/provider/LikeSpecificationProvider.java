@@ -17,11 +17,11 @@ public interface LikeSpecificationProvider<Entity, Provider extends LikeSpecific
 
     Provider like(Attribute<Entity, ?> field, String pattern);
 
-    Provider like(PathFunction<Entity> pathFunction, String pattern);
+    Provider like(PathFunction<Entity, String> pathFunction, String pattern);
 
     Provider likeIgnoreCase(String field, String pattern);
 
     Provider likeIgnoreCase(Attribute<Entity, ?> field, String pattern);
 
-    Provider likeIgnoreCase(PathFunction<Entity> pathFunction, String pattern);
+    Provider likeIgnoreCase(PathFunction<Entity, String> pathFunction, String pattern);
 }
@@ -0,0 +1,119 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.InChunks;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.PredicateVisitor;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lowers the specification tree replacing bound values with {@link ParameterExpression}.
+ * Parameters are registered in the same order as {@link ValueCollector} collects the values
+ *
+ * @param <Entity> the type of the entity
+ */
+class ParameterPredicateVisitor<Entity> extends PredicateVisitor<Entity> {
+    private final List<ParameterExpression<?>> parameters;
+
+    ParameterPredicateVisitor(
+            Root<Entity> root,
+            CriteriaQuery<?> query,
+            CriteriaBuilder criteriaBuilder,
+            PredicateOptions options
+    ) {
+        this(root, query, criteriaBuilder, options, new ArrayList<>());
+    }
+
+    private ParameterPredicateVisitor(
+            Root<Entity> root,
+            CriteriaQuery<?> query,
+            CriteriaBuilder criteriaBuilder,
+            PredicateOptions options,
+            List<ParameterExpression<?>> parameters
+    ) {
+        super(root, query, criteriaBuilder, options);
+        this.parameters = parameters;
+    }
+
+    List<ParameterExpression<?>> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    protected Predicate eq(EqNode<Entity> node) {
+        if (node.getValue() == null) {
+            return super.eq(node);
+        }
+        final var path = node.getPath().resolve(joins);
+        return criteriaBuilder.equal(path, register(typeOf(path, node.getValue())));
+    }
+
+    /**
+     * Every chunk is bound as single collection-valued parameter
+     */
+    @Override
+    protected Predicate in(InNode<Entity> node) {
+        if (node.getValues().isEmpty()) {
+            return super.in(node);
+        }
+        final var path = node.getPath().resolve(joins);
+        final var predicates = new Predicate[InChunks.count(node.getValues().size())];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = path.in(register(Collection.class));
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
+
+    @Override
+    protected Expression<?> comparable(Expression<?> path, Object value) {
+        return register(typeOf(path, value));
+    }
+
+    /**
+     * The kind of <code>like</code> pattern is the part of the shape, so only the values are parameterized
+     */
+    @Override
+    protected Expression<String> value(String value) {
+        return register(String.class);
+    }
+
+    /**
+     * The subquery registers its parameters in the same list to keep the order of values
+     */
+    @Override
+    protected PredicateVisitor<Entity> subqueryVisitor(Root<Entity> subqueryRoot) {
+        return new ParameterPredicateVisitor<>(
+                subqueryRoot,
+                query,
+                criteriaBuilder,
+                subqueryOptions(),
+                parameters
+        );
+    }
+
+    /**
+     * The parameter has the type of the attribute, so proxies and values of other numeric types
+     * are bound the same way. The values are converted in {@link SpecificationTemplate#bind}
+     */
+    private static Class<?> typeOf(Expression<?> path, Object value) {
+        final var javaType = path.getJavaType();
+        return javaType == null ? value.getClass() : MethodType.methodType(javaType).wrap().returnType();
+    }
+
+    private <T> ParameterExpression<T> register(Class<T> type) {
+        final var parameter = criteriaBuilder.parameter(type);
+        parameters.add(parameter);
+        return parameter;
+    }
+}
@@ -0,0 +1,122 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.InChunks;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.LikePattern;
+import com.kirekov.spec_builder.node.NodeVisitor;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copies the tree erasing bound values. Two trees that differ only by values
+ * have equal shapes, so the shape can be used as the key of {@link SpecificationTemplate}.
+ * Custom specifications are opaque and can hold values, so the tree that contains them has no shape
+ * and <code>null</code> is returned
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+class ShapeVisitor<Entity> implements NodeVisitor<Entity, SpecificationNode<Entity>> {
+    private final PredicateOptions options;
+
+    @Override
+    public SpecificationNode<Entity> visitEq(EqNode<Entity> node) {
+        final var value = node.getValue();
+        return new EqNode<>(node.getPath(), value == null ? null : ValueSlot.VALUE);
+    }
+
+    /**
+     * Only the number of chunks defines the shape, because each chunk is bound as single parameter
+     */
+    @Override
+    public SpecificationNode<Entity> visitIn(InNode<Entity> node) {
+        final var chunksCount = InChunks.count(node.getValues().size());
+        return new InNode<>(node.getPath(), Collections.nCopies(chunksCount, null));
+    }
+
+    /**
+     * The pattern is replaced with its kind, because exact, prefix and general patterns are lowered differently
+     */
+    @Override
+    public SpecificationNode<Entity> visitLike(LikeNode<Entity> node) {
+        return new LikeNode<>(node.getPath(), LikePattern.of(node.getPattern(), options).getKind().name());
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        final var kind = LikePattern.ofIgnoreCase(node.getPattern(), options).getKind();
+        return new LikeIgnoreCaseNode<>(node.getPath(), kind.name());
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitComparison(ComparisonNode<Entity> node) {
+        return new ComparisonNode<>(node.getPath(), node.getOperator(), ValueSlot.VALUE);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitBetween(BetweenNode<Entity> node) {
+        return new BetweenNode<>(node.getPath(), ValueSlot.VALUE, ValueSlot.VALUE);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitNot(NotNode<Entity> node) {
+        final var shape = node.getNode().accept(this);
+        return shape == null ? null : new NotNode<>(shape);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitAnd(AndNode<Entity> node) {
+        final var shapes = visitAll(node.getNodes());
+        return shapes == null ? null : new AndNode<>(shapes);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitOr(OrNode<Entity> node) {
+        final var shapes = visitAll(node.getNodes());
+        return shapes == null ? null : new OrNode<>(shapes);
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitCustom(CustomNode<Entity> node) {
+        return null;
+    }
+
+    @Override
+    public SpecificationNode<Entity> visitConstant(ConstantNode<Entity> node) {
+        return node;
+    }
+
+    private List<SpecificationNode<Entity>> visitAll(List<SpecificationNode<Entity>> nodes) {
+        final var shapes = new ArrayList<SpecificationNode<Entity>>(nodes.size());
+        for (final var node : nodes) {
+            final var shape = node.accept(this);
+            if (shape == null) {
+                return null;
+            }
+            shapes.add(shape);
+        }
+        return shapes;
+    }
+
+    /**
+     * Replaces the value. The type of the parameter is taken from the attribute, so the type of the value is dropped
+     */
+    enum ValueSlot {
+        VALUE
+    }
+}
@@ -0,0 +1,110 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * {@link CriteriaQuery} compiled once for the shape of the specification.
+ * Values are passed as parameters, so the rendered query is the same for every request
+ * and the query plan is taken from the cache of the persistence provider
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SpecificationTemplate<Entity> {
+    private final CriteriaQuery<Entity> criteriaQuery;
+    private final List<ParameterExpression<?>> parameters;
+
+    static <Entity> SpecificationTemplate<Entity> compile(
+            BuiltSpecification<Entity> specification,
+            Class<Entity> domainClass,
+            CriteriaBuilder criteriaBuilder
+    ) {
+        final var query = criteriaBuilder.createQuery(domainClass);
+        final var root = query.from(domainClass);
+        query.select(root).distinct(specification.isDistinct());
+        final var visitor = new ParameterPredicateVisitor<>(
+                root,
+                query,
+                criteriaBuilder,
+                specification.getOptions()
+        );
+        final var predicate = specification.getNode().accept(visitor);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return new SpecificationTemplate<>(query, List.copyOf(visitor.getParameters()));
+    }
+
+    /**
+     * Creates the query and binds the values of the specification.
+     * The specification must have the same shape as the one the template was compiled from
+     *
+     * @param entityManager the entity manager
+     * @param specification the specification
+     * @return the query with bound parameters
+     */
+    public TypedQuery<Entity> bind(EntityManager entityManager, BuiltSpecification<Entity> specification) {
+        final var collector = new ValueCollector<Entity>(specification.getOptions());
+        specification.getNode().accept(collector);
+        final var values = collector.getValues();
+        final var query = entityManager.createQuery(criteriaQuery);
+        for (int i = 0; i < parameters.size(); i++) {
+            final var parameter = parameters.get(i);
+            query.setParameter(asObjectParameter(parameter), convert(values.get(i), parameter.getParameterType()));
+        }
+        return query;
+    }
+
+    /**
+     * Converts the number to the numeric type of the attribute, e.g. {@link Integer} to {@link Long}.
+     * Other values are bound as is
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (!(value instanceof Number) || type.isInstance(value) || !Number.class.isAssignableFrom(type)) {
+            return value;
+        }
+        final var number = (Number) value;
+        if (type == Long.class) {
+            return number.longValue();
+        }
+        if (type == Integer.class) {
+            return number.intValue();
+        }
+        if (type == Short.class) {
+            return number.shortValue();
+        }
+        if (type == Byte.class) {
+            return number.byteValue();
+        }
+        if (type == Double.class) {
+            return number.doubleValue();
+        }
+        if (type == Float.class) {
+            return number.floatValue();
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(number.toString());
+        }
+        if (type == BigInteger.class) {
+            return new BigDecimal(number.toString()).toBigInteger();
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Parameter<Object> asObjectParameter(ParameterExpression<?> parameter) {
+        return (Parameter<Object>) parameter;
+    }
+}
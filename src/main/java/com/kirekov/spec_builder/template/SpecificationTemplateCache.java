@@ -0,0 +1,93 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of {@link SpecificationTemplate} keyed by the shape of the specification.
+ * Specifications that differ only by values reuse the same template.
+ * Specifications with custom nodes bypass the cache: they are compiled on every call and counted as misses,
+ * because the values captured by custom specifications would be baked into the shared query
+ *
+ * @param <Entity> the type of the entity
+ */
+public class SpecificationTemplateCache<Entity> {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final EntityManager entityManager;
+    private final Class<Entity> domainClass;
+    private final Map<TemplateKey<Entity>, SpecificationTemplate<Entity>> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SpecificationTemplateCache(EntityManager entityManager, Class<Entity> domainClass) {
+        this(entityManager, domainClass, DEFAULT_MAX_SIZE);
+    }
+
+    public SpecificationTemplateCache(EntityManager entityManager, Class<Entity> domainClass, int maxSize) {
+        this.entityManager = entityManager;
+        this.domainClass = domainClass;
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TemplateKey<Entity>, SpecificationTemplate<Entity>> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public TypedQuery<Entity> createQuery(BuiltSpecification<Entity> specification) {
+        return getTemplate(specification).bind(entityManager, specification);
+    }
+
+    public List<Entity> findAll(BuiltSpecification<Entity> specification) {
+        return createQuery(specification).getResultList();
+    }
+
+    public SpecificationTemplate<Entity> getTemplate(BuiltSpecification<Entity> specification) {
+        final var options = specification.getOptions();
+        final var shape = specification.getNode().accept(new ShapeVisitor<>(options));
+        if (shape == null) {
+            misses.increment();
+            return SpecificationTemplate.compile(specification, domainClass, entityManager.getCriteriaBuilder());
+        }
+        final var key = new TemplateKey<>(shape, specification.isDistinct(), options);
+        final var template = templates.get(key);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        final var compiled = SpecificationTemplate.compile(specification, domainClass, entityManager.getCriteriaBuilder());
+        templates.put(key, compiled);
+        return compiled;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    @Value
+    private static class TemplateKey<Entity> {
+        SpecificationNode<Entity> shape;
+        boolean distinct;
+        PredicateOptions options;
+    }
+}
@@ -0,0 +1,110 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.BetweenNode;
+import com.kirekov.spec_builder.node.ComparisonNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.CustomNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.InChunks;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeIgnoreCaseNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.LikePattern;
+import com.kirekov.spec_builder.node.NodeVisitor;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.PredicateOptions;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the values that are bound to the parameters of {@link SpecificationTemplate}
+ *
+ * @param <Entity> the type of the entity
+ */
+@RequiredArgsConstructor
+class ValueCollector<Entity> implements NodeVisitor<Entity, Void> {
+    private final PredicateOptions options;
+    private final List<Object> values = new ArrayList<>();
+
+    List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public Void visitEq(EqNode<Entity> node) {
+        if (node.getValue() != null) {
+            values.add(node.getValue());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIn(InNode<Entity> node) {
+        if (!node.getValues().isEmpty()) {
+            values.addAll(InChunks.split(node.getValues()));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitLike(LikeNode<Entity> node) {
+        values.addAll(LikePattern.of(node.getPattern(), options).getValues());
+        return null;
+    }
+
+    @Override
+    public Void visitLikeIgnoreCase(LikeIgnoreCaseNode<Entity> node) {
+        values.addAll(LikePattern.ofIgnoreCase(node.getPattern(), options).getValues());
+        return null;
+    }
+
+    @Override
+    public Void visitComparison(ComparisonNode<Entity> node) {
+        values.add(node.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitBetween(BetweenNode<Entity> node) {
+        values.add(node.getLower());
+        values.add(node.getUpper());
+        return null;
+    }
+
+    @Override
+    public Void visitNot(NotNode<Entity> node) {
+        return node.getNode().accept(this);
+    }
+
+    @Override
+    public Void visitAnd(AndNode<Entity> node) {
+        return visitAll(node.getNodes());
+    }
+
+    @Override
+    public Void visitOr(OrNode<Entity> node) {
+        return visitAll(node.getNodes());
+    }
+
+    @Override
+    public Void visitCustom(CustomNode<Entity> node) {
+        return null;
+    }
+
+    @Override
+    public Void visitConstant(ConstantNode<Entity> node) {
+        return null;
+    }
+
+    private Void visitAll(List<SpecificationNode<Entity>> nodes) {
+        for (final var node : nodes) {
+            node.accept(this);
+        }
+        return null;
+    }
+}
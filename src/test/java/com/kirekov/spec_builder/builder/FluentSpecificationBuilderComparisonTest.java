@@ -0,0 +1,95 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.template.SpecificationTemplateCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FluentSpecificationBuilderComparisonTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("first").age(20).build(),
+                Employee.builder().name("second").age(30).build(),
+                Employee.builder().name("third").age(40).build()
+        ));
+        employeeRepository.flush();
+    }
+
+    @Test
+    void comparisonsFindMatchedFields() {
+        assertEquals(List.of(40), findAges(FluentSpecificationBuilder.<Employee>combinedWithAnd().gt(Employee.AGE, 30)));
+        assertEquals(List.of(30, 40), findAges(FluentSpecificationBuilder.<Employee>combinedWithAnd().ge(Employee.AGE, 30)));
+        assertEquals(List.of(20), findAges(FluentSpecificationBuilder.<Employee>combinedWithAnd().lt(Employee.AGE, 30)));
+        assertEquals(List.of(20, 30), findAges(FluentSpecificationBuilder.<Employee>combinedWithAnd().le(Employee.AGE, 30)));
+    }
+
+    @Test
+    void betweenIncludesBounds() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd().between(Employee.AGE, 20, 30);
+        assertEquals(List.of(20, 30), findAges(builder));
+    }
+
+    @Test
+    void notBetweenFindsFieldsOutOfRange() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd().not().between(Employee.AGE, 20, 30);
+        assertEquals(List.of(40), findAges(builder));
+    }
+
+    @Test
+    void pathFunctionIsTyped() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                .lt(this::getAgePath, 25)
+                .gt(root -> root.get(Employee.AGE), 35);
+        assertEquals(List.of(20, 40), findAges(builder));
+    }
+
+    @Test
+    void comparisonWithNullIsRejected() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        assertThrows(IllegalArgumentException.class, () -> builder.gt(Employee.AGE, null));
+        assertThrows(IllegalArgumentException.class, () -> builder.between(Employee.AGE, 1, null));
+    }
+
+    @Test
+    void templateBindsComparedValues() {
+        final var cache = new SpecificationTemplateCache<>(entityManager, Employee.class);
+        final var first = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().between(Employee.AGE, 25, 45).build()
+        );
+        final var second = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().between(Employee.AGE, 15, 25).build()
+        );
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private List<Integer> findAges(FluentSpecificationBuilder<Employee> builder) {
+        return employeeRepository.findAll(builder.build()).stream()
+                .map(Employee::getAge)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Expression<Integer> getAgePath(Root<Employee> root) {
+        return root.get(Employee.AGE);
+    }
+}
@@ -0,0 +1,335 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.JoinType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FluentSpecificationBuilderJoinTest {
+    private static final String ANALYTIC_ROLE_NAME = "analytic";
+    private static final String MANAGER_ROLE_NAME = "manager";
+    private static final String ANALYTIC_USER_LOGIN = "analyticLogin";
+    private static final String MANAGER_USER_LOGIN = "managerLogin";
+    private static final String ADMIN_USER_LOGIN = "adminLogin";
+    private static final String NOBODY_USER_LOGIN = "nobodyLogin";
+    private static final String ROLES_NAME = User.ROLES + "." + Role.NAME;
+
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        final var analyticRole = roleRepository.saveAndFlush(Role.builder().name(ANALYTIC_ROLE_NAME).build());
+        final var managerRole = roleRepository.saveAndFlush(Role.builder().name(MANAGER_ROLE_NAME).build());
+        userRepository.saveAndFlush(
+                User.builder()
+                        .login(ANALYTIC_USER_LOGIN)
+                        .roles(List.of(analyticRole))
+                        .build()
+        );
+        userRepository.saveAndFlush(
+                User.builder()
+                        .login(MANAGER_USER_LOGIN)
+                        .roles(List.of(managerRole))
+                        .build()
+        );
+        userRepository.saveAndFlush(
+                User.builder()
+                        .login(ADMIN_USER_LOGIN)
+                        .roles(List.of(analyticRole, managerRole))
+                        .build()
+        );
+        userRepository.saveAndFlush(
+                User.builder()
+                        .login(NOBODY_USER_LOGIN)
+                        .roles(List.of())
+                        .build()
+        );
+    }
+
+    @Test
+    void dottedPathReturnsMatchedFields() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .like(ROLES_NAME, "%" + ADMIN_USER_LOGIN + "%")
+                        .buildDistinct();
+        final var users = userRepository.findAll(spec);
+        assertEquals(2, users.size());
+        assertTrue(findUserByLogin(ANALYTIC_USER_LOGIN, users).isPresent());
+        assertTrue(findUserByLogin(ADMIN_USER_LOGIN, users).isPresent());
+    }
+
+    @Test
+    void conditionsOnSameAssociationShareOneJoin() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .likeIgnoreCase(ROLES_NAME, "%A%")
+                        .in(User.ROLES + "." + Role.ID, List.of(1L, 2L))
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(User.class);
+        final var root = query.from(User.class);
+        spec.toPredicate(root, query, criteriaBuilder);
+        assertEquals(1, root.getJoins().size());
+    }
+
+    @Test
+    void joinOfOtherSpecificationIsNotReused() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(User.class);
+        final var root = query.from(User.class);
+        root.join(User.ROLES);
+        spec.toPredicate(root, query, criteriaBuilder);
+        assertEquals(2, root.getJoins().size());
+    }
+
+    @Test
+    void independentSpecificationsUseSeparateJoins() {
+        final var analytic = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                .buildDistinct();
+        final var manager = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                .buildDistinct();
+        final var users = userRepository.findAll(analytic.and(manager));
+        assertEquals(1, users.size());
+        assertEquals(ADMIN_USER_LOGIN, users.get(0).getLogin());
+    }
+
+    @Test
+    void leftJoinKeepsUsersWithoutRoles() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .joinType(JoinType.LEFT)
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(User.LOGIN, NOBODY_USER_LOGIN)
+                        .buildDistinct();
+        final var users = userRepository.findAll(spec);
+        assertEquals(3, users.size());
+        assertTrue(findUserByLogin(NOBODY_USER_LOGIN, users).isPresent());
+    }
+
+    @Test
+    void existsModeReturnsUsersWithoutDuplicates() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .associationMode(AssociationMode.EXISTS)
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .build();
+        final var users = userRepository.findAll(spec);
+        assertEquals(3, users.size());
+        assertFalse(findUserByLogin(NOBODY_USER_LOGIN, users).isPresent());
+    }
+
+    @Test
+    void existsModeAppliesEveryConditionToAnyAssociatedEntity() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .associationMode(AssociationMode.EXISTS)
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .build();
+        final var users = userRepository.findAll(spec);
+        assertEquals(1, users.size());
+        assertEquals(ADMIN_USER_LOGIN, users.get(0).getLogin());
+    }
+
+    @Test
+    void notExistsFindsUsersWithoutMatchedAssociations() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .associationMode(AssociationMode.EXISTS)
+                        .not().eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .build();
+        final var users = userRepository.findAll(spec);
+        assertEquals(2, users.size());
+        assertTrue(findUserByLogin(MANAGER_USER_LOGIN, users).isPresent());
+        assertTrue(findUserByLogin(NOBODY_USER_LOGIN, users).isPresent());
+    }
+
+    @Test
+    void autoModeDoesNotJoinCollections() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .associationMode(AssociationMode.AUTO)
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .like(User.LOGIN, "%" + NOBODY_USER_LOGIN + "%")
+                        .build();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(User.class);
+        final var root = query.from(User.class);
+        spec.toPredicate(root, query, criteriaBuilder);
+        assertTrue(root.getJoins().isEmpty());
+        assertEquals(3, userRepository.findAll(spec).size());
+    }
+
+    @Test
+    void autoModeAppliesConditionOnCollectionAsSubquery() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .associationMode(AssociationMode.AUTO)
+                        .in(User.ROLES, roleRepository.findAll())
+                        .build();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(User.class);
+        final var root = query.from(User.class);
+        spec.toPredicate(root, query, criteriaBuilder);
+        assertTrue(root.getJoins().isEmpty());
+        assertFalse(query.isDistinct());
+        assertEquals(3, userRepository.findAll(spec).size());
+    }
+
+    @Test
+    void embeddedSpecificationKeepsItsOptions() {
+        final var inner =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .associationMode(AssociationMode.EXISTS)
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .build();
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .specification(inner)
+                        .build();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(User.class);
+        final var root = query.from(User.class);
+        spec.toPredicate(root, query, criteriaBuilder);
+        assertTrue(root.getJoins().isEmpty());
+        assertEquals(2, userRepository.findAll(spec).size());
+    }
+
+    @Test
+    void embeddedDistinctSpecificationMatchesEveryUserOnce() {
+        final var inner =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .buildDistinct();
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .specification(inner)
+                        .build();
+        assertEquals(3, userRepository.findAll(spec).size());
+    }
+
+    @Test
+    void embeddedSpecificationWithHintsIsRejected() {
+        final var inner =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .eq(User.LOGIN, ADMIN_USER_LOGIN)
+                        .fetchSize(10)
+                        .build();
+        final var builder = FluentSpecificationBuilder.<User>combinedWithAnd();
+        assertThrows(IllegalArgumentException.class, () -> builder.specification(inner));
+    }
+
+    @Test
+    void countQueryIsNotDistinctAndDoesNotJoinRoot() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Long.class);
+        final var root = query.from(User.class);
+        final var predicate = spec.forCount().toPredicate(root, query, criteriaBuilder);
+        assertNotNull(predicate);
+        assertFalse(query.isDistinct());
+        assertTrue(root.getJoins().isEmpty());
+    }
+
+    @Test
+    void projectionOfLongTypeIsNotCountQuery() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Long.class);
+        final var root = query.from(User.class);
+        query.select(root.get(User.ID)).where(spec.toPredicate(root, query, criteriaBuilder));
+        assertTrue(query.isDistinct());
+        assertEquals(1, root.getJoins().size());
+        assertEquals(2, entityManager.createQuery(query).getResultList().size());
+    }
+
+    @Test
+    void customSpecificationIsAppliedToCountQueryOnce() {
+        final var calls = new AtomicInteger();
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .specification((root, query, criteriaBuilder) -> {
+                            calls.incrementAndGet();
+                            return criteriaBuilder.equal(root.join(User.ROLES).get(Role.NAME), ANALYTIC_ROLE_NAME);
+                        })
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Long.class);
+        final var root = query.from(User.class);
+        query.select(criteriaBuilder.count(root)).where(spec.forCount().toPredicate(root, query, criteriaBuilder));
+        assertEquals(2L, entityManager.createQuery(query).getSingleResult());
+        assertEquals(1, calls.get());
+        assertTrue(root.getJoins().isEmpty());
+    }
+
+    @Test
+    void countQueryWithoutJoinsIsAppliedToRoot() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(User.LOGIN, ADMIN_USER_LOGIN)
+                        .buildDistinct();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Long.class);
+        final var root = query.from(User.class);
+        query.select(criteriaBuilder.count(root)).where(spec.forCount().toPredicate(root, query, criteriaBuilder));
+        assertFalse(query.isDistinct());
+        assertTrue(root.getJoins().isEmpty());
+        assertEquals(1L, entityManager.createQuery(query).getSingleResult());
+    }
+
+    @Test
+    void pageTotalCountsEveryUserOnce() {
+        final var spec =
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(ROLES_NAME, ANALYTIC_ROLE_NAME)
+                        .eq(ROLES_NAME, MANAGER_ROLE_NAME)
+                        .buildDistinct();
+        final var page = userRepository.findAll(spec, PageRequest.of(0, 1));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+    }
+
+    private Optional<User> findUserByLogin(String login, Collection<User> users) {
+        return users.stream().filter(user -> Objects.equals(login, user.getLogin())).findAny();
+    }
+}
@@ -0,0 +1,73 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.NotNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FluentSpecificationBuilderNodeTest {
+
+    @Test
+    void identicalFiltersAreEqual() {
+        final var first = buildUserFilter("login", "name");
+        final var second = buildUserFilter("login", "name");
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    void filtersWithDifferentValuesAreNotEqual() {
+        assertNotEquals(buildUserFilter("login", "name"), buildUserFilter("login", "otherName"));
+    }
+
+    @Test
+    void filtersWithDifferentValuesHaveSameFingerprint() {
+        final var first = buildUserFilter("login", "name");
+        final var second = buildUserFilter("otherLogin", "otherName");
+        assertEquals(first.getNode().fingerprint(), second.getNode().fingerprint());
+        assertEquals("and(eq(login),not(like(roles)))", first.getNode().fingerprint());
+    }
+
+    @Test
+    void distinctIsPartOfEquality() {
+        final var builder = FluentSpecificationBuilder.<User>combinedWithAnd().eq(User.LOGIN, "login");
+        assertNotEquals(builder.build(), builder.buildDistinct());
+    }
+
+    @Test
+    void builderProducesFlatTree() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(User.LOGIN, "first")
+                .not().eq(User.ID, 1L)
+                .build();
+        final var expected = new AndNode<User>(List.of(
+                new EqNode<>(new FieldPath<>(User.LOGIN), "first"),
+                new NotNode<>(new EqNode<>(new FieldPath<>(User.ID), 1L))
+        ));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void builtSpecificationIsEmbeddedAsNode() {
+        final var inner = FluentSpecificationBuilder.<User>combinedWithOr()
+                .eq(User.LOGIN, "first")
+                .build();
+        final var outer = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .specification(inner)
+                .build();
+        assertEquals("and(or(eq(login)))", outer.getNode().fingerprint());
+    }
+
+    private BuiltSpecification<User> buildUserFilter(String login, String roleName) {
+        return FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(User.LOGIN, login)
+                .not().like(User.ROLES, roleName)
+                .build();
+    }
+}
@@ -6,9 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.persistence.EntityManager;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.ManagedType;
 import java.lang.reflect.Member;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.*;
 class FluentSpecificationBuilderTest {
     @Autowired
     private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     @Test
     void eqReturnsEqualsFields() {
@@ -261,6 +267,195 @@ class FluentSpecificationBuilderTest {
         assertFalse(employee.isPresent());
     }
 
+    @Test
+    void inFindsMatchedFields() {
+        saveEmployee("first");
+        saveEmployee("second");
+        saveEmployee("third");
+        final var spec =
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .in(createAttribute(Employee.NAME), List.of("first", "third", "fourth"))
+                        .build();
+        assertEquals(2, employeeRepository.findAll(spec).size());
+    }
+
+    @Test
+    void notInFindsUnmatchedFields() {
+        saveEmployee("first");
+        saveEmployee("second");
+        final var spec =
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .not().in(Employee.NAME, List.of("first", "third"))
+                        .build();
+        final var employees = employeeRepository.findAll(spec);
+        assertEquals(1, employees.size());
+        assertEquals("second", employees.get(0).getName());
+    }
+
+    @Test
+    void inWithEmptyCollectionFindsNothing() {
+        saveEmployee("first");
+        final var spec =
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .in(Employee.NAME, List.of())
+                        .build();
+        assertTrue(employeeRepository.findAll(spec).isEmpty());
+    }
+
+    @Test
+    void inWithLargeCollectionFindsMatchedFields() {
+        saveEmployee("name10");
+        saveEmployee("name2999");
+        saveEmployee("name3000");
+        final var names = IntStream.range(0, 3000)
+                .mapToObj(i -> "name" + i)
+                .collect(Collectors.toList());
+        final var spec =
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .in(Employee.NAME, names)
+                        .build();
+        assertEquals(2, employeeRepository.findAll(spec).size());
+    }
+
+    @Test
+    void manyConditionsAreCombinedIntoSinglePredicate() {
+        final var conditionsCount = 10_000;
+        var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        for (int i = 0; i < conditionsCount; i++) {
+            builder = builder.eq(Employee.NAME, "name" + i);
+        }
+        final var spec = builder.build();
+        final var criteriaBuilder = entityManager.getCriteriaBuilder();
+        final var query = criteriaBuilder.createQuery(Employee.class);
+        final var predicate = spec.toPredicate(query.from(Employee.class), query, criteriaBuilder);
+        assertEquals(conditionsCount, predicate.getExpressions().size());
+    }
+
+    @Test
+    void emptyBuilderDoesNotRestrictResult() {
+        saveEmployee("first");
+        saveEmployee("second");
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithOr().build();
+        assertEquals(2, employeeRepository.findAll(spec).size());
+    }
+
+    @Test
+    void likePrefixFindsOnlyMatchedFields() {
+        saveEmployee("prefix");
+        saveEmployee("prefixed");
+        saveEmployee("prefiy");
+        saveEmployee("other");
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        for (final var spec : List.of(
+                builder.like(Employee.NAME, "prefix%").build(),
+                builder.binaryCollation().like(Employee.NAME, "prefix%").build()
+        )) {
+            final var names = employeeRepository.findAll(spec).stream()
+                    .map(Employee::getName)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(List.of("prefix", "prefixed"), names);
+        }
+    }
+
+    @Test
+    void likeWithTrailingSingleEscapeIsRejected() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        assertThrows(IllegalArgumentException.class, () -> builder.like(Employee.NAME, "name\\"));
+        assertThrows(IllegalArgumentException.class, () -> builder.likeIgnoreCase(Employee.NAME, "name\\"));
+    }
+
+    @Test
+    void notLikePrefixFindsUnmatchedFields() {
+        saveEmployee("prefixed");
+        saveEmployee("other");
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .not().like(Employee.NAME, "prefix%")
+                .build();
+        final var employees = employeeRepository.findAll(spec);
+        assertEquals(1, employees.size());
+        assertEquals("other", employees.get(0).getName());
+    }
+
+    @Test
+    void likeEscapedWildcardMatchesLiterally() {
+        saveEmployee("100%");
+        saveEmployee("1000");
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .like(Employee.NAME, "100\\%")
+                .build();
+        final var employees = employeeRepository.findAll(spec);
+        assertEquals(1, employees.size());
+        assertEquals("100%", employees.get(0).getName());
+    }
+
+    @Test
+    void likeIgnoreCasePrefixFindsMatchedFields() {
+        saveEmployee("EmployeeName");
+        saveEmployee("Other");
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .likeIgnoreCase(Employee.NAME, "EMPLOYEE%")
+                .build();
+        final var employees = employeeRepository.findAll(spec);
+        assertEquals(1, employees.size());
+        assertEquals("EmployeeName", employees.get(0).getName());
+    }
+
+    @Test
+    void optimizedContradictionFindsNothing() {
+        saveEmployee("first");
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .optimized()
+                .eq(Employee.AGE, 0)
+                .eq(Employee.AGE, 1)
+                .build();
+        assertTrue(employeeRepository.findAll(spec).isEmpty());
+    }
+
+    @Test
+    void negatedEmptySpecificationIsAbsentWithAndWithoutOptimization() {
+        saveEmployee("first");
+        saveEmployee("second");
+        saveEmployee(null);
+        for (final var empty : List.of(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().build(),
+                FluentSpecificationBuilder.<Employee>combinedWithOr().build()
+        )) {
+            final var plain = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                    .not().specification(empty)
+                    .eq(Employee.NAME, "first")
+                    .build();
+            final var optimized = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                    .optimized()
+                    .not().specification(empty)
+                    .eq(Employee.NAME, "first")
+                    .build();
+            for (final var spec : List.of(plain, optimized)) {
+                final var employees = employeeRepository.findAll(spec);
+                assertEquals(1, employees.size());
+                assertEquals("first", employees.get(0).getName());
+            }
+        }
+    }
+
+    @Test
+    void optimizedSpecificationFindsSameRows() {
+        saveEmployee("first");
+        saveEmployee("second");
+        saveEmployee("third");
+        final var inner = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                .eq(Employee.NAME, "first")
+                .eq(Employee.NAME, "second")
+                .build();
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .not().specification(inner)
+                .not().in(Employee.NAME, List.of());
+        final var expected = employeeRepository.findAll(builder.build());
+        final var actual = employeeRepository.findAll(builder.optimized().build());
+        assertEquals(1, actual.size());
+        assertEquals(expected, actual);
+    }
+
     private void saveEmployee(String name) {
         employeeRepository.saveAndFlush(
                 Employee.builder()
@@ -0,0 +1,149 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.JoinType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ProjectionQueryTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void constructorProjectionSelectsGivenFields() {
+        final var employee = employeeRepository.saveAndFlush(Employee.builder().name("first").age(20).build());
+        employeeRepository.saveAndFlush(Employee.builder().name("second").age(30).build());
+        final var result = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .eq(Employee.AGE, 20)
+                .select(Employee.class, EmployeeName.class, "id", Employee.NAME)
+                .findAll(entityManager);
+        assertEquals(1, result.size());
+        assertEquals(employee.getId(), result.get(0).getId());
+        assertEquals("first", result.get(0).getName());
+    }
+
+    @Test
+    void interfaceProjectionReadsFieldsByGetters() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").age(20).build());
+        employeeRepository.saveAndFlush(Employee.builder().name("second").age(30).build());
+        final var result = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                .select(Employee.class, EmployeeView.class, Employee.NAME, Employee.AGE)
+                .findAll(entityManager, Sort.by(Sort.Direction.DESC, Employee.AGE));
+        assertEquals(List.of("second", "first"), result.stream().map(EmployeeView::getName).collect(Collectors.toList()));
+        assertEquals(30, result.get(0).getAge());
+    }
+
+    @Test
+    void tupleProjectionSharesJoinsWithConditions() {
+        final var role = roleRepository.saveAndFlush(Role.builder().name("admin").build());
+        userRepository.saveAndFlush(User.builder().login("login").roles(List.of(role)).build());
+        final var result = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq("roles.name", "admin")
+                .select(User.class, Tuple.class, User.LOGIN, "roles.name")
+                .findAll(entityManager);
+        assertEquals(1, result.size());
+        assertEquals("login", result.get(0).get(User.LOGIN));
+        assertEquals("admin", result.get(0).get("rolesName"));
+    }
+
+    @Test
+    void defaultMethodsOfInterfaceAreInvoked() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").age(20).build());
+        final var result = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .select(Employee.class, EmployeeView.class, Employee.NAME, Employee.AGE)
+                .findAll(entityManager);
+        assertEquals("first (20)", result.get(0).getDescription());
+    }
+
+    @Test
+    void interfaceWithoutSelectedGetterIsRejected() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.select(Employee.class, EmployeeView.class, Employee.NAME)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.select(Employee.class, NotGetterView.class, Employee.NAME)
+        );
+    }
+
+    @Test
+    void nullFieldOfPrimitiveGetterIsReportedClearly() {
+        userRepository.saveAndFlush(User.builder().login("login").roles(List.of()).build());
+        final var result = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .joinType(JoinType.LEFT)
+                .select(User.class, UserRoleView.class, User.LOGIN, "roles.id")
+                .findAll(entityManager);
+        assertEquals("login", result.get(0).getLogin());
+        final var exception = assertThrows(IllegalStateException.class, () -> result.get(0).getRolesId());
+        assertTrue(exception.getMessage().contains("rolesId"));
+    }
+
+    @Test
+    void dottedFieldIsAliasedInCamelCase() {
+        assertEquals("name", ProjectionQuery.aliasOf("name"));
+        assertEquals("rolesName", ProjectionQuery.aliasOf("roles.name"));
+    }
+
+    public static class EmployeeName {
+        private final Long id;
+        private final String name;
+
+        public EmployeeName(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public interface EmployeeView {
+        String getName();
+
+        int getAge();
+
+        default String getDescription() {
+            return getName() + " (" + getAge() + ")";
+        }
+    }
+
+    public interface UserRoleView {
+        String getLogin();
+
+        long getRolesId();
+    }
+
+    public interface NotGetterView {
+        String getName();
+
+        String name(String prefix);
+    }
+}
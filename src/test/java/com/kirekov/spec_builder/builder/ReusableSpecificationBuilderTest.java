@@ -0,0 +1,99 @@
+package com.kirekov.spec_builder.builder;
+
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.from.PathFunction;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.criteria.JoinType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ReusableSpecificationBuilderTest {
+    private static final PathFunction<Employee, String> NAME_FUNCTION = root -> root.get(Employee.NAME);
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("first").age(20).build(),
+                Employee.builder().name("second").age(30).build(),
+                Employee.builder().name("third").age(40).build()
+        ));
+        employeeRepository.flush();
+    }
+
+    @Test
+    void sameCallsBuildEqualSpecifications() {
+        final var fluent = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                .joinType(JoinType.LEFT)
+                .associationMode(AssociationMode.AUTO)
+                .eq(Employee.NAME, "first")
+                .not().in(Employee.AGE, List.of(20, 30))
+                .like(NAME_FUNCTION, "s%")
+                .not().likeIgnoreCase(Employee.NAME, "T%")
+                .between(Employee.AGE, 25, 35)
+                .gt(Employee.AGE, 30)
+                .readOnly()
+                .fetchSize(10)
+                .buildDistinct();
+        final var reusable = ReusableSpecificationBuilder.<Employee>combinedWithOr(1)
+                .joinType(JoinType.LEFT)
+                .associationMode(AssociationMode.AUTO)
+                .eq(Employee.NAME, "first")
+                .not().in(Employee.AGE, List.of(20, 30))
+                .like(NAME_FUNCTION, "s%")
+                .not().likeIgnoreCase(Employee.NAME, "T%")
+                .between(Employee.AGE, 25, 35)
+                .gt(Employee.AGE, 30)
+                .readOnly()
+                .fetchSize(10)
+                .buildDistinct();
+        assertEquals(fluent, reusable);
+    }
+
+    @Test
+    void notInvertsOnlyTheNextCondition() {
+        final var builder = ReusableSpecificationBuilder.<Employee>combinedWithAnd(4);
+        builder.not().eq(Employee.NAME, "first");
+        builder.ge(Employee.AGE, 30);
+        assertEquals(List.of(30, 40), findAges(builder.build()));
+    }
+
+    @Test
+    void resetDoesNotChangeBuiltSpecifications() {
+        final var builder = ReusableSpecificationBuilder.<Employee>combinedWithAnd(4);
+        final var first = builder.eq(Employee.NAME, "first").readOnly().build();
+        final var second = builder.reset().ge(Employee.AGE, 30).build();
+
+        assertEquals(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "first").readOnly().build(),
+                first
+        );
+        assertEquals(FluentSpecificationBuilder.<Employee>combinedWithAnd().ge(Employee.AGE, 30).build(), second);
+        assertEquals(List.of(20), findAges(first));
+        assertEquals(List.of(30, 40), findAges(second));
+    }
+
+    @Test
+    void invalidCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ReusableSpecificationBuilder.combinedWithAnd(0));
+    }
+
+    private List<Integer> findAges(BuiltSpecification<Employee> specification) {
+        return employeeRepository.findAll(specification, Sort.by(Employee.AGE))
+                .stream()
+                .map(Employee::getAge)
+                .collect(Collectors.toList());
+    }
+}
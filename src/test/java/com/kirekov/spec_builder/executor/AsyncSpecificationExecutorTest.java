@@ -0,0 +1,127 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The queries run in their own transactions, so the rows have to be committed
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AsyncSpecificationExecutorTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ExecutorService pool = AsyncSpecificationExecutor.createDefaultExecutor();
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(
+                IntStream.range(0, 5)
+                        .mapToObj(i -> Employee.builder().name("name" + i).age(i).build())
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @AfterEach
+    void afterEach() {
+        pool.shutdown();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    void contentAndCountAreCombinedIntoPage() {
+        final var executor = new AsyncSpecificationExecutor<>(entityManagerFactory, Employee.class, pool);
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd().ge(Employee.AGE, 1).build();
+        final var page = executor.findAll(spec, PageRequest.of(0, 2, Sort.by(Employee.AGE))).join();
+
+        assertEquals(List.of(1, 2), agesOf(page.getContent()));
+        assertEquals(4, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+
+    @Test
+    void countIsSkippedForLastPage() {
+        final var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        final var executor = new AsyncSpecificationExecutor<>(entityManagerFactory, Employee.class, Runnable::run);
+        final var page = executor.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().build(),
+                PageRequest.of(1, 3, Sort.by(Employee.AGE))
+        ).join();
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(List.of(3, 4), agesOf(page.getContent()));
+        assertEquals(5, page.getTotalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void waitingCountIsCancelledByShortContent() {
+        final var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        final var tasks = new ArrayDeque<Runnable>();
+        final var executor = new AsyncSpecificationExecutor<>(entityManagerFactory, Employee.class, tasks::add);
+        final var page = executor.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().build(),
+                PageRequest.of(1, 3, Sort.by(Employee.AGE))
+        );
+        assertEquals(2, tasks.size());
+        tasks.poll().run();
+        assertTrue(page.isDone());
+        tasks.poll().run();
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(5, page.join().getTotalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void emptyPageAfterTheLastOneIsCounted() {
+        final var executor = new AsyncSpecificationExecutor<>(entityManagerFactory, Employee.class, Runnable::run);
+        final var page = executor.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().build(),
+                PageRequest.of(5, 3)
+        ).join();
+
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(5, page.getTotalElements());
+    }
+
+    @Test
+    void unpagedQueryReturnsAllRows() {
+        final var executor = new AsyncSpecificationExecutor<>(entityManagerFactory, Employee.class, pool);
+        final var page = executor.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().build(), Pageable.unpaged())
+                .join();
+        assertEquals(5, page.getTotalElements());
+    }
+
+    private static List<Integer> agesOf(List<Employee> employees) {
+        return employees.stream().map(Employee::getAge).collect(Collectors.toList());
+    }
+}
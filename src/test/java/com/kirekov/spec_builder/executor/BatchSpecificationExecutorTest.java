@@ -0,0 +1,141 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BatchSpecificationExecutorTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("John").age(20).build(),
+                Employee.builder().name("Jack").age(30).build(),
+                Employee.builder().name("Jane").age(40).build()
+        ));
+        employeeRepository.flush();
+    }
+
+    @Test
+    void countsAreSelectedInOneQuery() {
+        final var executor = new BatchSpecificationExecutor<>(entityManager, Employee.class);
+        final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        final var counts = executor.count(List.of(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().ge(Employee.AGE, 30).build(),
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "Ja%").build(),
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "Nobody").build(),
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().build()
+        ));
+
+        assertEquals(List.of(2L, 2L, 0L, 3L), counts);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void rowsAreSplitBySpecifications() {
+        final var executor = new BatchSpecificationExecutor<>(entityManager, Employee.class);
+        final var rows = executor.findAll(
+                List.of(
+                        FluentSpecificationBuilder.<Employee>combinedWithAnd().lt(Employee.AGE, 35).build(),
+                        FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "Ja%").build(),
+                        FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "Nobody").build()
+                ),
+                Sort.by(Employee.AGE)
+        );
+
+        assertEquals(List.of("John", "Jack"), namesOf(rows.get(0)));
+        assertEquals(List.of("Jack", "Jane"), namesOf(rows.get(1)));
+        assertEquals(List.of(), rows.get(2));
+        assertSame(rows.get(0).get(1), rows.get(1).get(0));
+    }
+
+    @Test
+    void specificationThatMatchesNothingIsNotQueried() {
+        final var executor = new BatchSpecificationExecutor<>(entityManager, Employee.class);
+        final var nothing = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .in(Employee.NAME, List.of())
+                .build();
+        assertEquals(List.of(0L), executor.count(List.of(nothing)));
+        assertEquals(List.of(List.of()), executor.findAll(List.of(nothing)));
+    }
+
+    @Test
+    void joinsDoNotAffectOtherSpecifications() {
+        final var admin = roleRepository.saveAndFlush(Role.builder().name("admin").build());
+        final var manager = roleRepository.saveAndFlush(Role.builder().name("manager").build());
+        userRepository.saveAndFlush(User.builder().login("both").roles(List.of(admin, manager)).build());
+        userRepository.saveAndFlush(User.builder().login("nobody").roles(List.of()).build());
+        final var executor = new BatchSpecificationExecutor<>(entityManager, User.class);
+        final List<Specification<User>> specifications = List.of(
+                FluentSpecificationBuilder.<User>combinedWithOr()
+                        .eq(User.ROLES + "." + Role.NAME, "admin")
+                        .eq(User.ROLES + "." + Role.NAME, "manager")
+                        .build(),
+                FluentSpecificationBuilder.<User>combinedWithAnd().eq(User.LOGIN, "nobody").build()
+        );
+
+        assertEquals(List.of(1L, 1L), executor.count(specifications));
+        final var rows = executor.findAll(specifications);
+        assertEquals(1, rows.get(0).size());
+        assertEquals("both", rows.get(0).get(0).getLogin());
+        assertEquals("nobody", rows.get(1).get(0).getLogin());
+    }
+
+    @Test
+    void everySpecificationIsLoweredOnce() {
+        final var admin = roleRepository.saveAndFlush(Role.builder().name("admin").build());
+        userRepository.saveAndFlush(User.builder().login("admin").roles(List.of(admin, admin)).build());
+        userRepository.saveAndFlush(User.builder().login("nobody").roles(List.of()).build());
+        final var executor = new BatchSpecificationExecutor<>(entityManager, User.class);
+        final var calls = new AtomicInteger();
+        final Specification<User> lambda = (root, query, criteriaBuilder) -> {
+            calls.incrementAndGet();
+            return criteriaBuilder.equal(root.join(User.ROLES).get(Role.NAME), "admin");
+        };
+        final List<Specification<User>> specifications = List.of(
+                lambda,
+                FluentSpecificationBuilder.<User>combinedWithAnd()
+                        .eq(User.ROLES + "." + Role.NAME, "admin")
+                        .buildDistinct(),
+                FluentSpecificationBuilder.<User>combinedWithAnd().eq(User.LOGIN, "nobody").build()
+        );
+
+        assertEquals(List.of(1L, 1L, 1L), executor.count(specifications));
+        assertEquals(1, calls.get());
+    }
+
+    private static List<String> namesOf(List<Employee> employees) {
+        return employees.stream().map(Employee::getName).collect(Collectors.toList());
+    }
+}
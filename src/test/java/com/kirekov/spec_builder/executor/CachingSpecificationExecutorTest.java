@@ -0,0 +1,239 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class CachingSpecificationExecutorTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ResultCacheInvalidator invalidator;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAndFlush(Employee.builder().name("John").age(20).build());
+        employeeRepository.saveAndFlush(Employee.builder().name("Jack").age(30).build());
+    }
+
+    @Test
+    void equalSpecificationsShareEntry() {
+        final var executor = executor(16, Duration.ofMinutes(1));
+        assertEquals(1, executor.findAll(olderThan(25)).size());
+        assertEquals(1, executor.findAll(olderThan(25)).size());
+        assertEquals(2, executor.findAll(olderThan(15)).size());
+        assertEquals(2, executor.count(olderThan(15)));
+        assertEquals(2, executor.findAll(olderThan(15), PageRequest.of(0, 1)).getTotalElements());
+
+        assertEquals(4, queries.get());
+        assertEquals(1, executor.getHitCount());
+        assertEquals(4, executor.getMissCount());
+    }
+
+    @Test
+    void lambdaSpecificationsAreNotCached() {
+        final var executor = executor(16, Duration.ofMinutes(1));
+        executor.count((root, query, criteriaBuilder) -> null);
+        executor.count((root, query, criteriaBuilder) -> null);
+        assertEquals(2, queries.get());
+        assertEquals(0, executor.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        final var executor = executor(2, Duration.ofMinutes(1));
+        executor.count(olderThan(1));
+        executor.count(olderThan(2));
+        executor.count(olderThan(1));
+        executor.count(olderThan(3));
+        executor.count(olderThan(1));
+        executor.count(olderThan(2));
+
+        assertEquals(2, executor.size());
+        assertEquals(2, executor.getHitCount());
+        assertEquals(2, executor.getEvictionCount());
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    void expiredEntryIsQueriedAgain() {
+        final var executor = executor(16, Duration.ofSeconds(10));
+        executor.count(olderThan(1));
+        clock.advance(Duration.ofSeconds(9));
+        executor.count(olderThan(1));
+        clock.advance(Duration.ofSeconds(2));
+        executor.count(olderThan(1));
+
+        assertEquals(2, queries.get());
+        assertEquals(1, executor.getEvictionCount());
+    }
+
+    @Test
+    void changedEntityInvalidatesEntriesAfterCommit() {
+        commitTestTransaction();
+        final var executor = invalidator.register(executor(16, Duration.ofMinutes(1)));
+        try {
+            assertEquals(1, executor.count(olderThan(25)));
+            assertEquals(1, executor.count(olderThan(25)));
+            employeeRepository.save(Employee.builder().name("Jane").age(40).build());
+            assertEquals(2, executor.count(olderThan(25)));
+
+            assertEquals(2, queries.get());
+            assertEquals(1, executor.getHitCount());
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void rolledBackChangeIsNeitherCachedNorSeenByOtherTransactions() {
+        commitTestTransaction();
+        final var executor = invalidator.register(executor(16, Duration.ofMinutes(1)));
+        try {
+            TestTransaction.start();
+            employeeRepository.saveAndFlush(Employee.builder().name("Jane").age(40).build());
+            assertEquals(2, executor.count(olderThan(25)));
+            assertEquals(0, executor.size());
+            TestTransaction.end();
+
+            assertEquals(1, executor.count(olderThan(25)));
+            assertEquals(2, queries.get());
+            assertEquals(0, executor.getHitCount());
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void changedAssociationInvalidatesEntriesThatDependOnIt() {
+        final var executor = new CachingSpecificationExecutor<>(
+                countingDelegate(userRepository), entityManager, User.class, 16, Duration.ofMinutes(1), clock
+        );
+        final var byRole = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(User.ROLES + "." + Role.NAME, "admin")
+                .build();
+        final var byLogin = FluentSpecificationBuilder.<User>combinedWithAnd().eq(User.LOGIN, "admin").build();
+        executor.count(byRole);
+        executor.count(byLogin);
+
+        executor.invalidate(Set.of(Role.class));
+        executor.count(byRole);
+        executor.count(byLogin);
+
+        assertEquals(3, queries.get());
+        assertEquals(1, executor.getHitCount());
+    }
+
+    @Test
+    void cachedEntitiesAreLoadedIntoPersistenceContextOfCaller() {
+        final var executor = executor(16, Duration.ofMinutes(1));
+        final var first = executor.findAll(olderThan(25)).get(0);
+        entityManager.clear();
+        final var second = executor.findAll(olderThan(25)).get(0);
+
+        assertEquals(1, executor.getHitCount());
+        assertNotSame(first, second);
+        assertEquals(first.getId(), second.getId());
+        assertTrue(entityManager.contains(second));
+    }
+
+    /**
+     * Commits the rows of {@link #beforeEach()}, so the following queries run in their own transactions
+     */
+    private static void commitTestTransaction() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    private CachingSpecificationExecutor<Employee> executor(int maxSize, Duration timeToLive) {
+        return new CachingSpecificationExecutor<>(
+                countingDelegate(employeeRepository), entityManager, Employee.class, maxSize, timeToLive, clock
+        );
+    }
+
+    private static BuiltSpecification<Employee> olderThan(int age) {
+        return FluentSpecificationBuilder.<Employee>combinedWithAnd().gt(Employee.AGE, age).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> JpaSpecificationExecutor<T> countingDelegate(JpaSpecificationExecutor<T> repository) {
+        return (JpaSpecificationExecutor<T>) Proxy.newProxyInstance(
+                JpaSpecificationExecutor.class.getClassLoader(),
+                new Class<?>[]{JpaSpecificationExecutor.class},
+                (proxy, method, args) -> {
+                    queries.incrementAndGet();
+                    try {
+                        return method.invoke(repository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+        );
+    }
+
+    @TestConfiguration
+    static class InvalidatorConfiguration {
+        @Bean
+        ResultCacheInvalidator resultCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+            return new ResultCacheInvalidator(entityManagerFactory);
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
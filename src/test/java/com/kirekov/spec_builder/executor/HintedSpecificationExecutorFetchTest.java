@@ -0,0 +1,137 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.kirekov.spec_builder.executor.HintedSpecificationExecutorFetchTest$RecordingStatementInspector")
+class HintedSpecificationExecutorFetchTest {
+    private static final String ROLES_NAME = User.ROLES + "." + Role.NAME;
+
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private HintedSpecificationExecutor<User> executor;
+    private Statistics statistics;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = new HintedSpecificationExecutor<>(entityManager, User.class);
+        final var analytic = roleRepository.save(Role.builder().name("analytic").build());
+        final var manager = roleRepository.save(Role.builder().name("manager").build());
+        userRepository.save(User.builder().login("analytic").roles(List.of(analytic)).build());
+        userRepository.save(User.builder().login("manager").roles(List.of(manager)).build());
+        userRepository.save(User.builder().login("admin").roles(List.of(analytic, manager)).build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void lazyRolesAreLoadedPerUser() {
+        final var users = executor.findAll(FluentSpecificationBuilder.<User>combinedWithAnd().build());
+        assertEquals(4, totalRoles(users));
+        assertEquals(1 + users.size(), statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void fetchedRolesAreLoadedWithUsers() {
+        final var users = executor.findAll(FluentSpecificationBuilder.<User>combinedWithAnd().fetch(User.ROLES).build());
+        assertEquals(3, users.size());
+        assertEquals(4, totalRoles(users));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void distinctUsersAreReturnedOnceWithAllRoles() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .eq(ROLES_NAME, "analytic")
+                .eq(ROLES_NAME, "manager")
+                .fetch(User.ROLES)
+                .buildDistinct();
+        final var users = executor.findAll(spec, Sort.by(User.LOGIN));
+
+        assertEquals(List.of("admin", "analytic", "manager"), logins(users));
+        assertEquals(4, totalRoles(users));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void countQueryDoesNotFetch() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .eq(ROLES_NAME, "analytic")
+                .fetch(User.ROLES)
+                .buildDistinct();
+        final var page = executor.findAll(spec, PageRequest.of(0, 1, Sort.by(User.LOGIN)));
+
+        assertEquals(List.of("admin"), logins(page.getContent()));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(2, executor.count(spec));
+    }
+
+    @Test
+    void pageWithFetchedCollectionIsLimitedInDatabase() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .fetch(User.ROLES)
+                .build();
+        final var page = executor.findAll(spec, PageRequest.of(1, 1, Sort.by(User.LOGIN)));
+
+        assertEquals(List.of("analytic"), logins(page.getContent()));
+        assertEquals(1, totalRoles(page.getContent()));
+        assertEquals(3, page.getTotalElements());
+        final var idQuery = RecordingStatementInspector.STATEMENTS.get(0).toLowerCase(Locale.ROOT);
+        assertTrue(idQuery.contains(" limit "), idQuery);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private static int totalRoles(List<User> users) {
+        return users.stream().mapToInt(user -> user.getRoles().size()).sum();
+    }
+
+    private static List<String> logins(List<User> users) {
+        return users.stream().map(User::getLogin).collect(Collectors.toList());
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
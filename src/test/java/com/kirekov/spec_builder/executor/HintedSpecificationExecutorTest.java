@@ -0,0 +1,87 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class HintedSpecificationExecutorTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private HintedSpecificationExecutor<Employee> executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = new HintedSpecificationExecutor<>(entityManager, Employee.class);
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("John").age(20).build(),
+                Employee.builder().name("Jack").age(30).build()
+        ));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void readOnlyEntitiesAreNotDirtyChecked() {
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .gt(Employee.AGE, 10)
+                .readOnly()
+                .build();
+        final var session = entityManager.unwrap(Session.class);
+        final var employees = executor.findAll(spec);
+        assertEquals(2, employees.size());
+        employees.forEach(employee -> assertTrue(session.isReadOnly(employee)));
+    }
+
+    @Test
+    void hintsAreAppliedToQuery() {
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .eq(Employee.NAME, "John")
+                .fetchSize(50)
+                .timeout(Duration.ofSeconds(3))
+                .fingerprintComment()
+                .build();
+        final var query = entityManager.createQuery("select e from Employee e");
+        HintedSpecificationExecutor.applyHints(query, spec, true);
+        final var hints = query.getHints();
+        assertEquals(50, hints.get(HibernateHints.FETCH_SIZE));
+        assertEquals(3000L, ((Number) hints.get(HibernateHints.TIMEOUT)).longValue());
+        assertEquals("specification " + spec.getNode().fingerprint(), hints.get(HibernateHints.COMMENT));
+    }
+
+    @Test
+    void countQueryIsNotLocked() {
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .gt(Employee.AGE, 25)
+                .lockMode(LockModeType.PESSIMISTIC_WRITE)
+                .build();
+        final var page = executor.findAll(spec, PageRequest.of(0, 1));
+        assertEquals(1, page.getContent().size());
+        assertEquals(1, page.getTotalElements());
+        assertEquals(1, executor.count(spec));
+        assertEquals(LockModeType.PESSIMISTIC_WRITE, entityManager.getLockMode(page.getContent().get(0)));
+    }
+
+    @Test
+    void invalidHintsAreRejected() {
+        final var builder = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        assertThrows(IllegalArgumentException.class, () -> builder.fetchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.timeout(Duration.ZERO));
+    }
+}
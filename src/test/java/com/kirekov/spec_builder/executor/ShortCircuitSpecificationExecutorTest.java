@@ -0,0 +1,74 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ShortCircuitSpecificationExecutorTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    void provablyEmptySpecificationDoesNotReachDelegate() {
+        final var executor = new ShortCircuitSpecificationExecutor<>(failingDelegate());
+        final var emptyIn = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .in(Employee.NAME, List.of())
+                .build();
+        final var contradiction = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .eq(Employee.AGE, 1)
+                .eq(Employee.AGE, 2)
+                .build();
+        final var notAlwaysTrue = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .not().specification(
+                        FluentSpecificationBuilder.<Employee>combinedWithAnd().not().in(Employee.NAME, List.of()).build()
+                )
+                .build();
+
+        assertTrue(executor.findAll(emptyIn).isEmpty());
+        assertTrue(executor.findOne(contradiction).isEmpty());
+        assertEquals(0, executor.count(notAlwaysTrue));
+        assertTrue(executor.findAll(emptyIn, Sort.by(Employee.NAME)).isEmpty());
+        final var page = executor.findAll(contradiction, PageRequest.of(2, 10));
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(0, page.getTotalElements());
+        assertEquals(5, executor.getShortCircuitCount());
+        assertEquals(0, executor.getExecutionCount());
+    }
+
+    @Test
+    void otherSpecificationsArePassedToDelegate() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").age(1).build());
+        final var executor = new ShortCircuitSpecificationExecutor<>(employeeRepository);
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithOr()
+                .in(Employee.NAME, List.of())
+                .eq(Employee.AGE, 1)
+                .build();
+        assertEquals(1, executor.findAll(spec).size());
+        assertEquals(1, executor.count((root, query, criteriaBuilder) -> null));
+        assertEquals(0, executor.getShortCircuitCount());
+        assertEquals(2, executor.getExecutionCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JpaSpecificationExecutor<Employee> failingDelegate() {
+        return (JpaSpecificationExecutor<Employee>) Proxy.newProxyInstance(
+                JpaSpecificationExecutor.class.getClassLoader(),
+                new Class<?>[]{JpaSpecificationExecutor.class},
+                (proxy, method, args) -> {
+                    throw new AssertionError("Unexpected call of " + method.getName());
+                }
+        );
+    }
+}
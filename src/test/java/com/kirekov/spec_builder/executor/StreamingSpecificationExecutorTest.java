@@ -0,0 +1,135 @@
+package com.kirekov.spec_builder.executor;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class StreamingSpecificationExecutorTest {
+    private static final int EMPLOYEES_COUNT = 1000;
+    private static final int CLEAR_INTERVAL = 100;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private StreamingSpecificationExecutor<Employee> executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = new StreamingSpecificationExecutor<>(entityManager, Employee.class, 50, CLEAR_INTERVAL);
+        employeeRepository.saveAll(
+                IntStream.range(0, EMPLOYEES_COUNT)
+                        .mapToObj(i -> Employee.builder().name("name" + i).age(i).build())
+                        .collect(Collectors.toList())
+        );
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void streamReturnsAllMatchedRows() {
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "name1%").build();
+        try (final var stream = executor.stream(spec)) {
+            assertEquals(111, stream.count());
+        }
+    }
+
+    @Test
+    void persistenceContextSizeDoesNotGrowWithRowsCount() {
+        final var session = entityManager.unwrap(Session.class);
+        final var maxManagedEntities = new AtomicInteger();
+        final var processed = new AtomicInteger();
+        try (final var stream = executor.stream(null)) {
+            stream.forEach(employee -> {
+                assertTrue(entityManager.contains(employee));
+                maxManagedEntities.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+                processed.incrementAndGet();
+            });
+        }
+        assertEquals(EMPLOYEES_COUNT, processed.get());
+        assertTrue(maxManagedEntities.get() <= CLEAR_INTERVAL, "Managed entities: " + maxManagedEntities.get());
+    }
+
+    @Test
+    void fetchedAssociationsAreDetachedWithEntities() {
+        userRepository.saveAll(
+                IntStream.range(0, 3 * CLEAR_INTERVAL)
+                        .mapToObj(i -> {
+                            final var role = Role.builder().name("role" + i).build();
+                            entityManager.persist(role);
+                            return User.builder().login("user" + i).roles(List.of(role)).build();
+                        })
+                        .collect(Collectors.toList())
+        );
+        entityManager.flush();
+        entityManager.clear();
+        final var users = new StreamingSpecificationExecutor<>(entityManager, User.class, 50, CLEAR_INTERVAL);
+        final var session = entityManager.unwrap(Session.class);
+        final var maxManagedEntities = new AtomicInteger();
+        final Specification<User> fetchRoles = (root, query, criteriaBuilder) -> {
+            root.fetch(User.ROLES);
+            return null;
+        };
+        try (final var stream = users.stream(fetchRoles)) {
+            stream.forEach(user -> {
+                assertEquals(1, user.getRoles().size());
+                maxManagedEntities.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+            });
+        }
+        assertTrue(maxManagedEntities.get() <= 2 * CLEAR_INTERVAL, "Managed entities: " + maxManagedEntities.get());
+    }
+
+    @Test
+    void changesOfManagedEntitiesArePersisted() {
+        final var userId = userRepository.save(User.builder().login("user").roles(new ArrayList<>()).build()).getId();
+        entityManager.flush();
+        entityManager.clear();
+        final var user = entityManager.find(User.class, userId);
+        final var processed = new AtomicInteger();
+        try (final var stream = executor.stream(null)) {
+            stream.forEach(employee -> {
+                if (processed.incrementAndGet() == EMPLOYEES_COUNT / 2) {
+                    final var role = Role.builder().name("role").build();
+                    entityManager.persist(role);
+                    user.getRoles().add(role);
+                }
+            });
+        }
+        assertTrue(entityManager.contains(user));
+        entityManager.flush();
+        entityManager.clear();
+        final var roles = entityManager.find(User.class, userId).getRoles();
+        assertEquals(1, roles.size());
+        assertEquals("role", roles.get(0).getName());
+    }
+
+    @Test
+    void streamedEntitiesAreReadOnly() {
+        final var session = entityManager.unwrap(Session.class);
+        try (final var stream = executor.stream(null)) {
+            stream.limit(10).forEach(employee -> assertTrue(session.isReadOnly(employee)));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.kirekov.spec_builder.filter;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.metamodel.MetamodelRegistry;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FilterParserTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private FilterParser<Employee> parser;
+
+    @BeforeEach
+    void beforeEach() {
+        parser = new FilterParser<>(new MetamodelRegistry(entityManager.getMetamodel()).forEntity(Employee.class));
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("John").age(30).build(),
+                Employee.builder().name("Jack").age(31).build(),
+                Employee.builder().name("Jane").age(40).build(),
+                Employee.builder().name("50%").age(50).build()
+        ));
+        employeeRepository.flush();
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        assertEquals(List.of("Jack", "John"), findNames("name==John;age==30,name==Jack"));
+        assertEquals(List.of("John"), findNames("name==John;(age==30,name==Jack)"));
+    }
+
+    @Test
+    void valuesAreConvertedToFieldTypes() {
+        assertEquals(List.of("Jack", "John"), findNames("age=in=(30,31)"));
+        assertEquals(List.of("50%", "Jane"), findNames("age=out=(30,31)"));
+        assertEquals(List.of("Jack", "Jane", "John"), findNames("age!=50"));
+    }
+
+    @Test
+    void comparisonsAreSupported() {
+        assertEquals(List.of("50%", "Jane"), findNames("age=gt=31"));
+        assertEquals(List.of("Jack", "John"), findNames("age=le=31;name=like=J*"));
+        assertEquals(List.of("Jack", "Jane"), findNames("age=ge=31;age=lt=50"));
+    }
+
+    @Test
+    void likeUsesAsteriskAsWildcard() {
+        assertEquals(List.of("Jack", "Jane"), findNames("name=like=Ja*"));
+        assertEquals(List.of("Jack", "Jane", "John"), findNames("name=ilike=j*"));
+        assertEquals(List.of("50%"), findNames("name=like=*%"));
+        assertEquals(List.of(), findNames("name=like=5_%"));
+    }
+
+    @Test
+    void quotedEmptyValueIsEmptyString() {
+        employeeRepository.saveAndFlush(Employee.builder().name("").age(60).build());
+        employeeRepository.saveAndFlush(Employee.builder().age(70).build());
+        assertEquals(List.of(60), findAges("name==''"));
+        assertEquals(List.of(60), findAges("name=in=(\"\",Nobody)"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("age==''"));
+    }
+
+    @Test
+    void parsedSpecificationEqualsBuiltOne() {
+        final var expected = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .eq(Employee.NAME, "John")
+                .specification(
+                        FluentSpecificationBuilder.<Employee>combinedWithOr()
+                                .not().in(Employee.AGE, List.of(30, 31))
+                                .likeIgnoreCase(Employee.NAME, "ja%")
+                                .build()
+                )
+                .build();
+        assertEquals(expected, parser.parse("name==John;(age=out=(30,31),name=ilike=ja*)"));
+    }
+
+    @Test
+    void blankFilterDoesNotRestrictQuery() {
+        assertEquals(4, findNames(" ").size());
+    }
+
+    @Test
+    void sameShapeIsCompiledOnce() {
+        findNames("name==John;age==30");
+        findNames("name==Jack;age==31");
+        findNames("name == 'Jane' ; age == 40");
+        findNames("age==30;name==John");
+        assertEquals(2, parser.getMissCount());
+        assertEquals(2, parser.getHitCount());
+        assertEquals(2, parser.size());
+    }
+
+    @Test
+    void invalidFiltersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("unknown==1"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("age==abc"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("age=gte=1"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("age==(1,2)"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("(age==1"));
+    }
+
+    private List<String> findNames(String filter) {
+        return employeeRepository.findAll(parser.parse(filter)).stream()
+                .map(Employee::getName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> findAges(String filter) {
+        return employeeRepository.findAll(parser.parse(filter)).stream()
+                .map(Employee::getAge)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
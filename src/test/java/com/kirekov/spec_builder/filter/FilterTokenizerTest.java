@@ -0,0 +1,41 @@
+package com.kirekov.spec_builder.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterTokenizerTest {
+
+    @Test
+    void valuesAreReplacedWithSlots() {
+        final var tokenized = FilterTokenizer.tokenize("name==John;(age=in=(30, 31),login=like=ab*)");
+        assertEquals("name==?;(age=in=(?,?),login=like=?)", tokenized.getShape());
+        assertEquals(List.of("John", "30", "31", "ab*"), tokenized.getValues());
+    }
+
+    @Test
+    void quotedValuesMayContainReservedCharacters() {
+        final var tokenized = FilterTokenizer.tokenize("name=='John; \\'Doe\\''");
+        assertEquals("name==?", tokenized.getShape());
+        assertEquals(List.of("John; 'Doe'"), tokenized.getValues());
+    }
+
+    @Test
+    void filtersWithDifferentValuesHaveSameShape() {
+        assertEquals(
+                FilterTokenizer.tokenize("name!=first;age==1").getShape(),
+                FilterTokenizer.tokenize("name != \"second\" ; age == 2").getShape()
+        );
+    }
+
+    @Test
+    void malformedFiltersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FilterTokenizer.tokenize("name=John"));
+        assertThrows(IllegalArgumentException.class, () -> FilterTokenizer.tokenize("name=="));
+        assertThrows(IllegalArgumentException.class, () -> FilterTokenizer.tokenize("name=in=(a,b"));
+        assertThrows(IllegalArgumentException.class, () -> FilterTokenizer.tokenize("name=='John"));
+        assertThrows(IllegalArgumentException.class, () -> FilterTokenizer.tokenize("na?me==John"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.kirekov.spec_builder.keyset;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.kirekov.spec_builder.keyset.KeysetExecutorTest$RecordingStatementInspector")
+class KeysetExecutorTest {
+    private static final int EMPLOYEES_COUNT = 25;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private KeysetExecutor<Employee> executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = new KeysetExecutor<>(entityManager, Employee.class);
+        for (int i = 0; i < EMPLOYEES_COUNT; i++) {
+            employeeRepository.saveAndFlush(
+                    Employee.builder()
+                            .name("name" + (i % 5))
+                            .age(i)
+                            .build()
+            );
+        }
+    }
+
+    @Test
+    void pagesContainAllRowsInSortOrder() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Employee.NAME, "id"));
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "name%").build();
+        final var found = new ArrayList<Employee>();
+        String token = null;
+        var pagesCount = 0;
+        do {
+            final var page = executor.findPage(spec, keyset, token, 10);
+            found.addAll(page.getContent());
+            token = page.getNextToken();
+            pagesCount++;
+        } while (token != null);
+
+        assertEquals(3, pagesCount);
+        final var expected = employeeRepository.findAll(spec, keyset.getSort());
+        assertEquals(ids(expected), ids(found));
+    }
+
+    @Test
+    void descendingSortIsSupported() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Sort.Direction.DESC, Employee.AGE, "id"));
+        final var firstPage = executor.findPage(null, keyset, null, 20);
+        final var secondPage = executor.findPage(null, keyset, firstPage.getNextToken(), 20);
+        assertTrue(firstPage.hasNext());
+        assertFalse(secondPage.hasNext());
+        assertEquals(5, secondPage.getContent().size());
+        assertEquals(4, secondPage.getContent().get(0).getAge());
+    }
+
+    @Test
+    void seekSpecificationWorksWithRepository() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Employee.AGE, "id"));
+        final var firstPage = employeeRepository.findAll(keyset.after(null, null), keyset.pageable(10));
+        final var token = keyset.tokenOf(firstPage.getContent().get(9));
+        final var secondPage = employeeRepository.findAll(keyset.after(null, token), keyset.pageable(10));
+        assertEquals(10, secondPage.getContent().get(0).getAge());
+    }
+
+    @Test
+    void ignoreCaseSortIsSeekedInTheSameOrder() {
+        employeeRepository.saveAndFlush(Employee.builder().name("NAME1").age(100).build());
+        employeeRepository.saveAndFlush(Employee.builder().name("Name3").age(101).build());
+        final var sort = Sort.by(Sort.Order.asc(Employee.NAME).ignoreCase(), Sort.Order.asc("id"));
+        final var keyset = Keyset.<Employee>sortedBy(sort);
+        final var found = new ArrayList<Employee>();
+        String token = null;
+        do {
+            final var page = executor.findPage(null, keyset, token, 4);
+            found.addAll(page.getContent());
+            token = page.getNextToken();
+        } while (token != null);
+
+        assertEquals(ids(employeeRepository.findAll(sort)), ids(found));
+    }
+
+    @Test
+    void pagesAfterFirstOneRunSameStatement() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Employee.AGE, "id"));
+        final var firstPage = executor.findPage(null, keyset, null, 10);
+        RecordingStatementInspector.STATEMENTS.clear();
+        final var secondPage = executor.findPage(null, keyset, firstPage.getNextToken(), 10);
+        executor.findPage(null, keyset, secondPage.getNextToken(), 10);
+
+        final var statements = RecordingStatementInspector.STATEMENTS;
+        assertEquals(2, statements.size());
+        assertEquals(statements.get(0), statements.get(1));
+        assertFalse(statements.get(0).matches("(?s).*[<>=]\\s*\\d.*"), statements.get(0));
+    }
+
+    @Test
+    void nullHandlingIsRejected() {
+        final var sort = Sort.by(Sort.Order.asc(Employee.NAME).nullsFirst(), Sort.Order.asc("id"));
+        assertThrows(IllegalArgumentException.class, () -> Keyset.<Employee>sortedBy(sort));
+    }
+
+    @Test
+    void tokenIsReadFromProxy() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Employee.AGE, "id"));
+        final var employee = employeeRepository.findAll(keyset.getSort()).get(3);
+        final var expected = keyset.tokenOf(employee);
+        entityManager.clear();
+        final var proxy = entityManager.getReference(Employee.class, employee.getId());
+
+        assertEquals(expected, keyset.tokenOf(proxy));
+    }
+
+    @Test
+    void tokenWithWrongSizeIsRejected() {
+        final var keyset = Keyset.<Employee>sortedBy(Sort.by(Employee.AGE, "id"));
+        final var token = Keyset.<Employee>sortedBy(Sort.by("id")).tokenOf(employeeRepository.findAll().get(0));
+        assertThrows(IllegalArgumentException.class, () -> keyset.after(null, token));
+        assertThrows(IllegalArgumentException.class, () -> keyset.after(null, "not a token"));
+    }
+
+    private static List<Long> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getId).collect(Collectors.toList());
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
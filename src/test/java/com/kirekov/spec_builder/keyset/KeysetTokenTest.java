@@ -0,0 +1,29 @@
+package com.kirekov.spec_builder.keyset;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetTokenTest {
+
+    @Test
+    void valuesAreDecodedWithTheirTypes() {
+        final List<Object> values = List.of(
+                "name", 1L, 2, new BigDecimal("1.50"), true, UUID.randomUUID(), LocalDate.now(), Instant.now()
+        );
+        assertEquals(values, KeysetToken.decode(KeysetToken.encode(values)));
+    }
+
+    @Test
+    void nullAndUnsupportedValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetToken.encode(Arrays.asList("name", null)));
+        assertThrows(IllegalArgumentException.class, () -> KeysetToken.encode(List.of(new Object())));
+    }
+}
@@ -0,0 +1,163 @@
+package com.kirekov.spec_builder.memory;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.node.AssociationMode;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class InMemoryCompilerTest {
+    private static final String ROLES_NAME = User.ROLES + "." + Role.NAME;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("John").age(20).build(),
+                Employee.builder().name("jack_1").age(30).build(),
+                Employee.builder().name("Jane%").age(40).build(),
+                Employee.builder().name(null).age(50).build()
+        ));
+        employeeRepository.flush();
+        final var analytic = roleRepository.saveAndFlush(Role.builder().name("analytic").build());
+        final var manager = roleRepository.saveAndFlush(Role.builder().name("manager").build());
+        userRepository.saveAndFlush(User.builder().login("analytic").roles(List.of(analytic)).build());
+        userRepository.saveAndFlush(User.builder().login("manager").roles(List.of(manager)).build());
+        userRepository.saveAndFlush(User.builder().login("admin").roles(List.of(analytic, manager)).build());
+        userRepository.saveAndFlush(User.builder().login("nobody").roles(List.of()).build());
+    }
+
+    @Test
+    void employeesMatchTheSameRowsAsQuery() {
+        final List<BuiltSpecification<Employee>> specifications = List.of(
+                employees().eq(Employee.NAME, "John").build(),
+                employees().not().eq(Employee.NAME, "John").build(),
+                employees().in(Employee.AGE, List.of(20, 40)).build(),
+                employees().not().in(Employee.NAME, List.of("John")).build(),
+                employees().like(Employee.NAME, "J%").build(),
+                employees().like(Employee.NAME, "jack\\__").build(),
+                employees().like(Employee.NAME, "%\\%").build(),
+                employees().not().like(Employee.NAME, "J___").build(),
+                employees().likeIgnoreCase(Employee.NAME, "JA%").build(),
+                employees().gt(Employee.AGE, 20).lt(Employee.AGE, 50).build(),
+                employees().not().between(Employee.AGE, 25, 45).build(),
+                FluentSpecificationBuilder.<Employee>combinedWithOr()
+                        .eq(Employee.NAME, "John")
+                        .not().like(Employee.NAME, "%a%")
+                        .build(),
+                employees().build()
+        );
+        final var all = employeeRepository.findAll();
+        for (final var specification : specifications) {
+            final var predicate = InMemoryCompiler.compile(specification, Employee.class);
+            assertEquals(
+                    ids(employeeRepository.findAll(specification)),
+                    ids(all.stream().filter(predicate).collect(Collectors.toList())),
+                    specification.getNode().toString()
+            );
+        }
+    }
+
+    @Test
+    void usersMatchTheSameRowsAsQuery() {
+        final List<BuiltSpecification<User>> specifications = List.of(
+                users().eq(ROLES_NAME, "analytic").eq(ROLES_NAME, "manager").buildDistinct(),
+                users().associationMode(AssociationMode.EXISTS)
+                        .eq(ROLES_NAME, "analytic")
+                        .eq(ROLES_NAME, "manager")
+                        .build(),
+                users().not().eq(ROLES_NAME, "analytic").buildDistinct(),
+                users().associationMode(AssociationMode.AUTO).not().eq(ROLES_NAME, "analytic").build()
+        );
+        final var all = userRepository.findAll();
+        for (final var specification : specifications) {
+            final var predicate = InMemoryCompiler.compile(specification, User.class);
+            assertEquals(
+                    userIds(userRepository.findAll(specification)),
+                    userIds(all.stream().filter(predicate).collect(Collectors.toList())),
+                    specification.getNode().toString()
+            );
+        }
+    }
+
+    @Test
+    void conditionsOnTheSameAssociationMatchTheSameElement() {
+        final var all = userRepository.findAll();
+        final var joined = InMemoryCompiler.compile(
+                users().eq(ROLES_NAME, "analytic").eq(ROLES_NAME, "manager").build(),
+                User.class
+        );
+        final var exists = InMemoryCompiler.compile(
+                users().associationMode(AssociationMode.EXISTS)
+                        .eq(ROLES_NAME, "analytic")
+                        .eq(ROLES_NAME, "manager")
+                        .build(),
+                User.class
+        );
+        assertEquals(0, all.stream().filter(joined).count());
+        assertEquals(List.of("admin"), all.stream().filter(exists).map(User::getLogin).collect(Collectors.toList()));
+    }
+
+    @Test
+    void customSpecificationIsRejected() {
+        final var specification = employees()
+                .specification((root, query, criteriaBuilder) -> criteriaBuilder.conjunction())
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> InMemoryCompiler.compile(specification, Employee.class));
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        final var specification = employees().eq("salary", 1).build();
+        assertThrows(IllegalArgumentException.class, () -> InMemoryCompiler.compile(specification, Employee.class));
+    }
+
+    @Test
+    void valueOfIncompatibleTypeIsRejected() {
+        final var comparison = employees().gt(Employee.NAME, 1).build();
+        final var equality = employees().eq(Employee.AGE, "20").build();
+        final var between = employees().between(Employee.AGE, 20L, 30.5).build();
+
+        assertThrows(IllegalArgumentException.class, () -> InMemoryCompiler.compile(comparison, Employee.class));
+        assertThrows(IllegalArgumentException.class, () -> InMemoryCompiler.compile(equality, Employee.class));
+        final var predicate = InMemoryCompiler.compile(between, Employee.class);
+        assertEquals(2, employeeRepository.findAll().stream().filter(predicate).count());
+    }
+
+    private static FluentSpecificationBuilder<Employee> employees() {
+        return FluentSpecificationBuilder.combinedWithAnd();
+    }
+
+    private static FluentSpecificationBuilder<User> users() {
+        return FluentSpecificationBuilder.combinedWithAnd();
+    }
+
+    private static Set<Long> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<Long> userIds(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,118 @@
+package com.kirekov.spec_builder.metamodel;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.Role;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import com.kirekov.spec_builder.repository.RoleRepository;
+import com.kirekov.spec_builder.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class MetamodelRegistryTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private MetamodelRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new MetamodelRegistry(entityManager.getMetamodel());
+    }
+
+    @Test
+    void resolvedPathsAreCached() {
+        final var attributes = registry.forEntity(User.class);
+        assertSame(attributes, registry.forEntity(User.class));
+        assertSame(attributes.resolve("roles.name"), attributes.resolve("roles.name"));
+    }
+
+    @Test
+    void dottedPathIsResolvedToElementType() {
+        final var path = registry.forEntity(User.class).resolve(User.ROLES + "." + Role.NAME);
+        assertEquals(2, path.getAttributes().size());
+        assertEquals(String.class, path.getJavaType());
+    }
+
+    @Test
+    void unknownFieldFailsOnBuilderCall() {
+        final var builder = FluentSpecificationBuilder.combinedWithAnd(registry.forEntity(Employee.class));
+        assertThrows(IllegalArgumentException.class, () -> builder.eq("nmae", "name"));
+        assertThrows(IllegalArgumentException.class, () -> builder.like("name.value", "name"));
+    }
+
+    @Test
+    void valueOfWrongTypeFailsOnBuilderCall() {
+        final var builder = FluentSpecificationBuilder.combinedWithAnd(registry.forEntity(Employee.class));
+        assertThrows(IllegalArgumentException.class, () -> builder.eq(Employee.AGE, "22"));
+        assertThrows(IllegalArgumentException.class, () -> builder.like(Employee.AGE, "%2%"));
+        assertThrows(IllegalArgumentException.class, () -> builder.in(Employee.AGE, List.of(1, "2")));
+    }
+
+    @Test
+    void numericValueIsWidenedToTypeOfField() {
+        employeeRepository.saveAndFlush(Employee.builder().name("name").age(22).build());
+        final var builder = FluentSpecificationBuilder.combinedWithAnd(registry.forEntity(Employee.class));
+        assertEquals(1, employeeRepository.findAll(builder.eq(Employee.AGE, 22L).build()).size());
+        assertEquals(1, employeeRepository.findAll(builder.ge(Employee.AGE, (short) 22).build()).size());
+        assertThrows(IllegalArgumentException.class, () -> builder.eq(Employee.AGE, 22.5));
+    }
+
+    @Test
+    void associationPathsAreJoinedByResolvedAttributes() {
+        final var role = roleRepository.saveAndFlush(Role.builder().name("admin").build());
+        userRepository.saveAndFlush(User.builder().login("admin").roles(List.of(role)).build());
+        userRepository.saveAndFlush(User.builder().login("user").roles(List.of()).build());
+        final var attributes = registry.forEntity(User.class);
+        final var byName = FluentSpecificationBuilder.combinedWithAnd(attributes)
+                .eq(User.ROLES + "." + Role.NAME, "admin")
+                .build();
+        final var byElement = FluentSpecificationBuilder.combinedWithAnd(attributes)
+                .eq(User.ROLES, role)
+                .build();
+        assertEquals(List.of("admin"), logins(userRepository.findAll(byName)));
+        assertEquals(List.of("admin"), logins(userRepository.findAll(byElement)));
+    }
+
+    @Test
+    void validatedBuilderFindsMatchedFields() {
+        employeeRepository.saveAndFlush(Employee.builder().name("name").age(22).build());
+        final var spec = FluentSpecificationBuilder.combinedWithAnd(registry.forEntity(Employee.class))
+                .eq(Employee.AGE, 22)
+                .likeIgnoreCase(Employee.NAME, "NA%")
+                .not().in(Employee.NAME, List.of("other"))
+                .build();
+        assertEquals(1, employeeRepository.findAll(spec).size());
+    }
+
+    @Test
+    void validatedAndPlainBuildersProduceEqualSpecifications() {
+        final var validated = FluentSpecificationBuilder.combinedWithAnd(registry.forEntity(Employee.class))
+                .eq(Employee.NAME, "name")
+                .build();
+        final var plain = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .eq(Employee.NAME, "name")
+                .build();
+        assertEquals(plain, validated);
+    }
+
+    private static List<String> logins(List<User> users) {
+        return users.stream().map(User::getLogin).collect(Collectors.toList());
+    }
+}
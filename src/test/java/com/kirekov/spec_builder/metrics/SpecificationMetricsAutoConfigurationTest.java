@@ -0,0 +1,34 @@
+package com.kirekov.spec_builder.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecificationMetricsAutoConfigurationTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(SpecificationMetricsAutoConfiguration.class));
+
+    @Test
+    void metricsAreRegisteredWithMeterRegistry() {
+        contextRunner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .run(context -> assertThat(context).hasSingleBean(SpecificationMetrics.class));
+    }
+
+    @Test
+    void metricsCanBeDisabled() {
+        contextRunner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withPropertyValues("spec-builder.metrics.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(SpecificationMetrics.class));
+    }
+
+    @Test
+    void metricsAreNotRegisteredWithoutMicrometer() {
+        contextRunner.withClassLoader(new FilteredClassLoader(MeterRegistry.class))
+                .run(context -> assertThat(context).doesNotHaveBean(SpecificationMetrics.class));
+    }
+}
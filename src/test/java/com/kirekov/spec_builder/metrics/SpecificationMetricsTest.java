@@ -0,0 +1,143 @@
+package com.kirekov.spec_builder.metrics;
+
+import com.kirekov.spec_builder.builder.BuiltSpecification;
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class SpecificationMetricsTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void beforeEach() {
+        employeeRepository.saveAll(List.of(
+                Employee.builder().name("John").age(20).build(),
+                Employee.builder().name("Jack").age(30).build()
+        ));
+        employeeRepository.flush();
+    }
+
+    @Test
+    void metricsAreTaggedWithShapeFingerprint() {
+        final var metrics = new SpecificationMetrics(registry);
+        final var executor = metrics.instrument(employeeRepository, Employee.class);
+        final var first = FluentSpecificationBuilder.<Employee>combinedWithAnd().gt(Employee.AGE, 10).build();
+        final var second = FluentSpecificationBuilder.<Employee>combinedWithAnd().gt(Employee.AGE, 25).build();
+        executor.findAll(first);
+        executor.findAll(second);
+        executor.count(first);
+
+        final var fingerprint = first.getNode().fingerprint();
+        assertFalse(fingerprint.contains("10"));
+        final var queries = registry.get(SpecificationMetrics.QUERY_TIMER)
+                .tag("entity", "Employee")
+                .tag("operation", "findAll")
+                .tag("fingerprint", fingerprint)
+                .timer();
+        assertEquals(2, queries.count());
+        final var rows = registry.get(SpecificationMetrics.ROWS_SUMMARY)
+                .tag("fingerprint", fingerprint)
+                .summary();
+        assertEquals(2, rows.count());
+        assertEquals(3, rows.totalAmount());
+        assertEquals(3, registry.get(SpecificationMetrics.PREDICATE_TIMER).timers().stream().mapToLong(Timer::count).sum());
+        assertEquals(1, registry.get(SpecificationMetrics.QUERY_TIMER).tag("operation", "count").timer().count());
+    }
+
+    @Test
+    void numberOfFingerprintsIsBounded() {
+        final var metrics = new SpecificationMetrics(registry, Duration.ofSeconds(1), 1);
+        final var executor = metrics.instrument(employeeRepository, Employee.class);
+        executor.count(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "John").build());
+        executor.count(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.AGE, 20).build());
+        executor.count((root, query, criteriaBuilder) -> null);
+
+        assertEquals(1, registry.get(SpecificationMetrics.QUERY_TIMER)
+                .tag("fingerprint", SpecificationMetrics.OTHER_FINGERPRINT)
+                .timer()
+                .count());
+        assertEquals(1, registry.get(SpecificationMetrics.QUERY_TIMER)
+                .tag("fingerprint", SpecificationMetrics.CUSTOM_FINGERPRINT)
+                .timer()
+                .count());
+        assertEquals(3, registry.get(SpecificationMetrics.QUERY_TIMER).timers().size());
+    }
+
+    @Test
+    void failedQueryIsRecordedWithException() {
+        final var metrics = new SpecificationMetrics(registry);
+        final var executor = metrics.instrument(employeeRepository, Employee.class);
+        final Specification<Employee> failing = (root, query, criteriaBuilder) -> {
+            throw new UnsupportedOperationException();
+        };
+        assertThrows(UnsupportedOperationException.class, () -> executor.findAll(failing));
+
+        final var queries = registry.get(SpecificationMetrics.QUERY_TIMER)
+                .tag("outcome", SpecificationMetrics.ERROR_OUTCOME)
+                .tag("exception", "UnsupportedOperationException")
+                .timer();
+        assertEquals(1, queries.count());
+        assertTrue(registry.find(SpecificationMetrics.ROWS_SUMMARY).summaries().isEmpty());
+    }
+
+    @Test
+    void builtSpecificationIsPassedToDelegate() {
+        final var passed = new ArrayList<Specification<?>>();
+        final var executor = new SpecificationMetrics(registry).instrument(capturing(passed), Employee.class);
+        final var specification = FluentSpecificationBuilder.<Employee>combinedWithAnd().gt(Employee.AGE, 10).build();
+        executor.count(specification);
+
+        assertTrue(passed.get(0) instanceof BuiltSpecification);
+        assertEquals(specification, passed.get(0));
+    }
+
+    @Test
+    void longFingerprintIsCutAndHashed() {
+        final var metrics = new SpecificationMetrics(registry);
+        var first = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        var second = FluentSpecificationBuilder.<Employee>combinedWithAnd();
+        for (int i = 0; i < 20; i++) {
+            first = first.eq(Employee.NAME, "name");
+            second = second.eq(Employee.NAME, "name");
+        }
+        second = second.eq(Employee.AGE, 20);
+
+        final var firstFingerprint = metrics.fingerprintOf(first.build());
+        final var secondFingerprint = metrics.fingerprintOf(second.build());
+        assertEquals(SpecificationMetrics.MAX_FINGERPRINT_LENGTH, firstFingerprint.length());
+        assertEquals(SpecificationMetrics.MAX_FINGERPRINT_LENGTH, secondFingerprint.length());
+        assertNotEquals(firstFingerprint, secondFingerprint);
+        assertEquals(firstFingerprint, metrics.fingerprintOf(first.build()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JpaSpecificationExecutor<Employee> capturing(List<Specification<?>> passed) {
+        return (JpaSpecificationExecutor<Employee>) Proxy.newProxyInstance(
+                JpaSpecificationExecutor.class.getClassLoader(),
+                new Class<?>[]{JpaSpecificationExecutor.class},
+                (proxy, method, args) -> {
+                    passed.add((Specification<?>) args[0]);
+                    return 0L;
+                }
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package com.kirekov.spec_builder.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InChunksTest {
+
+    @Test
+    void paddedSizeIsPowerOfTwo() {
+        assertEquals(1, InChunks.paddedSize(1));
+        assertEquals(2, InChunks.paddedSize(2));
+        assertEquals(4, InChunks.paddedSize(3));
+        assertEquals(8, InChunks.paddedSize(5));
+        assertEquals(512, InChunks.paddedSize(500));
+        assertEquals(512, InChunks.paddedSize(512));
+    }
+
+    @Test
+    void smallListIsPaddedWithLastValue() {
+        final var chunks = InChunks.split(List.of(1, 2, 3));
+        assertEquals(List.of(List.of(1, 2, 3, 3)), chunks);
+    }
+
+    @Test
+    void largeListIsSplitIntoBoundedChunks() {
+        final var values = IntStream.range(0, 50_000).boxed().collect(Collectors.<Object>toList());
+        final var chunks = InChunks.split(values);
+        assertEquals(InChunks.count(values.size()), chunks.size());
+        assertEquals(98, chunks.size());
+
+        final var flattened = new ArrayList<>();
+        for (final var chunk : chunks) {
+            assertTrue(chunk.size() <= InChunks.MAX_CHUNK_SIZE);
+            assertEquals(1, Integer.bitCount(chunk.size()));
+            flattened.addAll(chunk);
+        }
+        assertEquals(values, flattened.stream().distinct().collect(Collectors.toList()));
+    }
+}
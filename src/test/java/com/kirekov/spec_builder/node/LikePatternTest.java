@@ -0,0 +1,85 @@
+package com.kirekov.spec_builder.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikePatternTest {
+    private static final PredicateOptions BINARY = PredicateOptions.DEFAULT.withBinaryCollation(true);
+
+    @Test
+    void patternWithoutWildcardsIsExact() {
+        final var pattern = LikePattern.of("abc", PredicateOptions.DEFAULT);
+        assertEquals(LikePattern.Kind.EXACT, pattern.getKind());
+        assertEquals(List.of("abc"), pattern.getValues());
+    }
+
+    @Test
+    void escapedWildcardsAreLiterals() {
+        final var pattern = LikePattern.of("100\\%\\_\\\\", PredicateOptions.DEFAULT);
+        assertEquals(LikePattern.Kind.EXACT, pattern.getKind());
+        assertEquals(List.of("100%_\\"), pattern.getValues());
+    }
+
+    @Test
+    void trailingPercentIsPrefix() {
+        final var pattern = LikePattern.of("ab\\%c%", BINARY);
+        assertEquals(LikePattern.Kind.PREFIX, pattern.getKind());
+        assertEquals(List.of("ab%c", "ab%d", "ab\\%c%"), pattern.getValues());
+    }
+
+    @Test
+    void otherPatternsAreGeneral() {
+        assertEquals(LikePattern.Kind.GENERAL, LikePattern.of("%abc", PredicateOptions.DEFAULT).getKind());
+        assertEquals(LikePattern.Kind.GENERAL, LikePattern.of("a%c%", BINARY).getKind());
+        assertEquals(LikePattern.Kind.GENERAL, LikePattern.of("ab_%", BINARY).getKind());
+        assertEquals(LikePattern.Kind.GENERAL, LikePattern.of("%", PredicateOptions.DEFAULT).getKind());
+        assertEquals(List.of("%abc"), LikePattern.of("%abc", PredicateOptions.DEFAULT).getValues());
+    }
+
+    @Test
+    void prefixIsGeneralWithoutBinaryCollation() {
+        final var pattern = LikePattern.of("abc%", PredicateOptions.DEFAULT);
+        assertEquals(LikePattern.Kind.GENERAL, pattern.getKind());
+        assertEquals(List.of("abc%"), pattern.getValues());
+    }
+
+    @Test
+    void trailingSingleEscapeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LikePattern.of("abc\\", PredicateOptions.DEFAULT));
+        assertThrows(IllegalArgumentException.class, () -> LikePattern.ofIgnoreCase("abc\\", BINARY));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> LikePattern.ofIgnoreCase("abc\\", BINARY.withIgnoreCaseStrategy(IgnoreCaseStrategy.ilike()))
+        );
+        assertEquals(List.of("abc\\"), LikePattern.of("abc\\\\", PredicateOptions.DEFAULT).getValues());
+    }
+
+    @Test
+    void prefixWithoutSuccessorIsGeneral() {
+        assertNull(LikePattern.successor("a" + Character.MAX_VALUE));
+        assertEquals(LikePattern.Kind.GENERAL, LikePattern.of("a" + Character.MAX_VALUE + "%", BINARY).getKind());
+    }
+
+    @Test
+    void ignoreCasePatternDoesNotDependOnDefaultLocale() {
+        final var defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            final var pattern = LikePattern.ofIgnoreCase("TITLE%", BINARY);
+            assertEquals(List.of("title", "titlf", "title%"), pattern.getValues());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void ilikePatternIsNotRewritten() {
+        final var pattern = LikePattern.ofIgnoreCase("ABC", BINARY.withIgnoreCaseStrategy(IgnoreCaseStrategy.ilike()));
+        assertEquals(LikePattern.Kind.GENERAL, pattern.getKind());
+        assertEquals(List.of("abc"), pattern.getValues());
+    }
+}
@@ -0,0 +1,208 @@
+package com.kirekov.spec_builder.optimizer;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.entity.User;
+import com.kirekov.spec_builder.node.AndNode;
+import com.kirekov.spec_builder.node.ConstantNode;
+import com.kirekov.spec_builder.node.EqNode;
+import com.kirekov.spec_builder.node.FieldPath;
+import com.kirekov.spec_builder.node.InNode;
+import com.kirekov.spec_builder.node.LikeNode;
+import com.kirekov.spec_builder.node.NotNode;
+import com.kirekov.spec_builder.node.OrNode;
+import com.kirekov.spec_builder.node.SpecificationNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecificationOptimizerTest {
+
+    @Test
+    void duplicatesAreRemoved() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .like(User.LOGIN, "%a%")
+                .like(User.LOGIN, "%a%")
+                .build();
+        assertEquals(new LikeNode<>(new FieldPath<User>(User.LOGIN), "%a%"), spec.getNode());
+    }
+
+    @Test
+    void doubleNegationIsRemoved() {
+        final var inner = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .not().like(User.LOGIN, "%a%")
+                .build();
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .not().specification(inner)
+                .build();
+        assertEquals(new LikeNode<>(new FieldPath<User>(User.LOGIN), "%a%"), spec.getNode());
+    }
+
+    @Test
+    void negationIsPushedDown() {
+        final var inner = FluentSpecificationBuilder.<User>combinedWithOr()
+                .like(User.LOGIN, "%a%")
+                .like(User.ROLES + ".name", "%b%")
+                .build();
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .not().specification(inner)
+                .build();
+        final var expected = new AndNode<User>(List.of(
+                new NotNode<>(new LikeNode<>(new FieldPath<>(User.LOGIN), "%a%")),
+                new NotNode<>(new LikeNode<>(new FieldPath<>(User.ROLES + ".name"), "%b%"))
+        ));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void equalitiesCombinedWithOrAreMergedIntoIn() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .optimized()
+                .eq(User.LOGIN, "first")
+                .like(User.LOGIN, "%a%")
+                .in(User.LOGIN, List.of("second", "first"))
+                .eq(User.LOGIN, "third")
+                .build();
+        final var expected = new OrNode<User>(List.of(
+                InNode.of(new FieldPath<>(User.LOGIN), List.of("first", "second", "third")),
+                new LikeNode<>(new FieldPath<>(User.LOGIN), "%a%")
+        ));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void equalitiesOfDifferentTypesAreNotMerged() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .optimized()
+                .eq(User.ID, 1L)
+                .eq(User.ID, 2)
+                .eq(User.ID, 3L)
+                .build();
+        final var expected = new OrNode<User>(List.of(
+                InNode.of(new FieldPath<>(User.ID), List.of(1L, 3L)),
+                new EqNode<>(new FieldPath<>(User.ID), 2)
+        ));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void negatedEqualitiesOfDifferentTypesAreNotMerged() {
+        final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                .optimized()
+                .not().eq(Employee.AGE, 1)
+                .not().eq(Employee.AGE, 1L)
+                .not().eq(Employee.AGE, 2)
+                .build();
+        final var expected = new AndNode<Employee>(List.of(
+                new NotNode<>(InNode.of(new FieldPath<>(Employee.AGE), List.of(1, 2))),
+                new NotNode<>(new EqNode<>(new FieldPath<>(Employee.AGE), 1L))
+        ));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void negatedEqualitiesCombinedWithAndAreMergedIntoNotIn() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .not().eq(User.LOGIN, "first")
+                .not().eq(User.LOGIN, "second")
+                .build();
+        final SpecificationNode<User> expected =
+                new NotNode<>(InNode.of(new FieldPath<>(User.LOGIN), List.of("first", "second")));
+        assertEquals(expected, spec.getNode());
+    }
+
+    @Test
+    void contradictingEqualitiesBecomeFalse() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .eq(User.ID, 1L)
+                .like(User.LOGIN, "%a%")
+                .eq(User.ID, 2L)
+                .build();
+        assertEquals(new ConstantNode<User>(false), spec.getNode());
+    }
+
+    @Test
+    void equalitiesCombinedWithAndAreIntersected() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .in(User.ID, List.of(1L, 2L, 3L))
+                .in(User.ID, List.of(2L, 3L, 4L))
+                .not().eq(User.ID, 3L)
+                .build();
+        assertEquals(new EqNode<>(new FieldPath<User>(User.ID), 2L), spec.getNode());
+    }
+
+    @Test
+    void stringsAndDottedPathsAreNotIntersected() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .eq(User.LOGIN, "first")
+                .eq(User.LOGIN, "FIRST")
+                .eq(User.ROLES + ".id", 1L)
+                .eq(User.ROLES + ".id", 2L)
+                .build();
+        assertEquals("and(eq(login),eq(login),eq(roles.id),eq(roles.id))", spec.getNode().fingerprint());
+    }
+
+    @Test
+    void alwaysFalseOperandIsFolded() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .optimized()
+                .in(User.ID, List.of())
+                .eq(User.LOGIN, "first")
+                .build();
+        assertEquals(new EqNode<>(new FieldPath<User>(User.LOGIN), "first"), spec.getNode());
+    }
+
+    @Test
+    void negatedAlwaysFalseOperandIsAlwaysTrue() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .optimized()
+                .not().in(User.ID, List.of())
+                .eq(User.LOGIN, "first")
+                .build();
+        assertEquals(new ConstantNode<User>(true), spec.getNode());
+    }
+
+    @Test
+    void negatedEmptyAndIsAbsentCondition() {
+        final var empty = FluentSpecificationBuilder.<User>combinedWithAnd().build();
+        final var spec = FluentSpecificationBuilder.<User>combinedWithOr()
+                .optimized()
+                .not().specification(empty)
+                .eq(User.LOGIN, "first")
+                .build();
+        assertEquals(new EqNode<>(new FieldPath<User>(User.LOGIN), "first"), spec.getNode());
+    }
+
+    @Test
+    void negatedEmptyOrIsAbsentCondition() {
+        final var empty = FluentSpecificationBuilder.<User>combinedWithOr().build();
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .not().specification(empty)
+                .eq(User.LOGIN, "first")
+                .build();
+        assertEquals(new EqNode<>(new FieldPath<User>(User.LOGIN), "first"), spec.getNode());
+        final var alone = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .not().specification(empty)
+                .build();
+        assertEquals(new AndNode<User>(List.of()), alone.getNode());
+    }
+
+    @Test
+    void emptyTreeStaysEmpty() {
+        final var spec = FluentSpecificationBuilder.<User>combinedWithAnd()
+                .optimized()
+                .build();
+        assertEquals(new AndNode<User>(List.of()), spec.getNode());
+    }
+}
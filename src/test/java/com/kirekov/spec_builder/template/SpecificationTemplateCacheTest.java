@@ -0,0 +1,161 @@
+package com.kirekov.spec_builder.template;
+
+import com.kirekov.spec_builder.builder.FluentSpecificationBuilder;
+import com.kirekov.spec_builder.entity.Employee;
+import com.kirekov.spec_builder.repository.EmployeeRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class SpecificationTemplateCacheTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private SpecificationTemplateCache<Employee> cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new SpecificationTemplateCache<>(entityManager, Employee.class);
+    }
+
+    @Test
+    void differentValuesReuseOneQueryPlan() {
+        final var requestsCount = 10_000;
+        employeeRepository.saveAndFlush(Employee.builder().name("name42").age(42).build());
+        final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        for (int i = 0; i < requestsCount; i++) {
+            final var spec = FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                    .eq(Employee.NAME, "name" + i)
+                    .eq(Employee.AGE, i)
+                    .build();
+            final var employees = cache.findAll(spec);
+            assertEquals(i == 42 ? 1 : 0, employees.size());
+        }
+        statistics.setStatisticsEnabled(false);
+
+        assertTrue(statistics.getQueryPlanCacheMissCount() <= 1);
+        assertTrue(statistics.getQueryPlanCacheHitCount() >= requestsCount - 1);
+        assertEquals(requestsCount, statistics.getPrepareStatementCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(requestsCount - 1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void differentShapesUseDifferentTemplates() {
+        cache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "a").build());
+        cache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "a").build());
+        cache.findAll(FluentSpecificationBuilder.<Employee>combinedWithOr().eq(Employee.NAME, "a").build());
+        cache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "a").buildDistinct());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void templateBindsLikeIgnoreCaseAndNotValues() {
+        employeeRepository.saveAndFlush(Employee.builder().name("EmployeeName").age(20).build());
+        final var found = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .likeIgnoreCase(Employee.NAME, "%EMPLOYEE%")
+                        .not().eq(Employee.AGE, 21)
+                        .build()
+        );
+        final var notFound = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .likeIgnoreCase(Employee.NAME, "%EMPLOYEE%")
+                        .not().eq(Employee.AGE, 20)
+                        .build()
+        );
+        assertEquals(1, found.size());
+        assertTrue(notFound.isEmpty());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void likePatternKindIsPartOfShape() {
+        employeeRepository.saveAndFlush(Employee.builder().name("EmployeeName").build());
+        final var prefix = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "Employee%").build()
+        );
+        final var otherPrefix = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "Name%").build()
+        );
+        final var exact = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "EmployeeName").build()
+        );
+        assertEquals(1, prefix.size());
+        assertTrue(otherPrefix.isEmpty());
+        assertEquals(1, exact.size());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void inWithDifferentSizesReusesOneTemplate() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").build());
+        final var found = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .in(Employee.NAME, List.of("first", "second", "third"))
+                        .build()
+        );
+        final var notFound = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd()
+                        .in(Employee.NAME, List.of("second", "third", "fourth", "fifth", "sixth"))
+                        .build()
+        );
+        assertEquals(1, found.size());
+        assertTrue(notFound.isEmpty());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void customSpecificationsBypassTheCache() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").build());
+        for (final var name : List.of("first", "second")) {
+            final Specification<Employee> byName = (root, query, criteriaBuilder) ->
+                    criteriaBuilder.equal(root.get(Employee.NAME), name);
+            final var found = cache.findAll(
+                    FluentSpecificationBuilder.<Employee>combinedWithAnd().specification(byName).build()
+            );
+            assertEquals(name.equals("first") ? 1 : 0, found.size());
+        }
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void valuesAreBoundWithTheTypeOfTheAttribute() {
+        employeeRepository.saveAndFlush(Employee.builder().name("first").age(20).build());
+        final var found = cache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().gt("id", 0).build());
+        final var notFound = cache.findAll(
+                FluentSpecificationBuilder.<Employee>combinedWithAnd().gt("id", Long.MAX_VALUE).build()
+        );
+        assertEquals(1, found.size());
+        assertTrue(notFound.isEmpty());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void leastRecentlyUsedTemplateIsEvicted() {
+        final var boundedCache = new SpecificationTemplateCache<>(entityManager, Employee.class, 1);
+        boundedCache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "a").build());
+        boundedCache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().like(Employee.NAME, "a").build());
+        boundedCache.findAll(FluentSpecificationBuilder.<Employee>combinedWithAnd().eq(Employee.NAME, "b").build());
+        assertEquals(1, boundedCache.size());
+        assertEquals(3, boundedCache.getMissCount());
+    }
+}